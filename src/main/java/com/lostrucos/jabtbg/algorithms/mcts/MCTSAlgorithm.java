@@ -3,17 +3,56 @@ package com.lostrucos.jabtbg.algorithms.mcts;
 import com.lostrucos.jabtbg.core.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
 
 /**
  * Implements the Monte Carlo Tree Search (MCTS) algorithm for games with perfect information.
  */
 public class MCTSAlgorithm<E extends Action, T extends GameState<E>> implements Algorithm<T, E> {
 
+    /**
+     * How the search is spread over multiple threads.
+     */
+    public enum ParallelMode {
+        /**
+         * A single thread grows the tree.
+         */
+        NONE,
+        /**
+         * Every thread grows an independent tree from the same root with its own random generator.
+         * The statistics of the root children are merged when the search ends.
+         */
+        ROOT,
+        /**
+         * All the threads select, expand and backpropagate concurrently on a single tree. A virtual loss on the
+         * nodes being searched steers the other threads towards different paths.
+         */
+        TREE,
+        /**
+         * A single thread grows the tree, and every expanded node is simulated once per thread in parallel.
+         * The playouts are backpropagated together with their total reward and number of visits.
+         */
+        LEAF
+    }
+
     private final int numIterations;
     private final double explorationConstant;
-    private Map<T, MCTSNode<T, E>> gameTree;
-    private MCTSNode<T, E> rootNode;
+    private final ParallelMode parallelMode;
+    private final int numThreads;
+    private final int stateCacheVisits;
+    private final boolean transpositions;
+    private final double wideningCoefficient;
+    private final double wideningExponent;
+    private final PlayoutEngine<T, E> playoutEngine;
+    private final double raveEquivalence;
+    private final boolean solver;
+    private MCTSNodeStore<T, E> tree;
+    private final List<MCTSNodeStore<T, E>> workerTrees = new ArrayList<>(); // trees of the other workers in root mode
     private UtilityStrategy<T, E> utilityStrategy;
+    private final SplittableRandom random = new SplittableRandom();
+    private ExecutorService workers;
 
     private static final long TIME_LIMIT_MS = 10000; // 10 secondi
 
@@ -24,9 +63,57 @@ public class MCTSAlgorithm<E extends Action, T extends GameState<E>> implements
      * @param explorationConstant the exploration constant used in UCB.
      */
     public MCTSAlgorithm(int numIterations, double explorationConstant) {
-        this.numIterations = numIterations;
-        this.explorationConstant = explorationConstant;
-        this.gameTree = new HashMap<>();
+        this(numIterations, explorationConstant, ParallelMode.NONE, 1);
+    }
+
+    /**
+     * Constructs a new MCTSAlgorithm searching with multiple threads.
+     *
+     * @param numIterations       the number of simulations to run, shared by all the threads.
+     * @param explorationConstant the exploration constant used in UCB.
+     * @param parallelMode        how the threads share the search.
+     * @param numThreads          the number of threads, ignored when the mode is {@link ParallelMode#NONE}.
+     */
+    public MCTSAlgorithm(int numIterations, double explorationConstant, ParallelMode parallelMode, int numThreads) {
+        this(new Builder<E, T>()
+                .iterations(numIterations)
+                .explorationConstant(explorationConstant)
+                .parallelMode(parallelMode)
+                .threads(numThreads));
+    }
+
+    private MCTSAlgorithm(Builder<E, T> builder) {
+        if (builder.numThreads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + builder.numThreads);
+        }
+        if (builder.wideningCoefficient < 0 || builder.wideningExponent <= 0 || builder.wideningExponent > 1) {
+            throw new IllegalArgumentException("Invalid progressive widening: " + builder.wideningCoefficient
+                    + " * n^" + builder.wideningExponent);
+        }
+        if (builder.raveEquivalence < 0) {
+            throw new IllegalArgumentException("The RAVE equivalence must not be negative: " + builder.raveEquivalence);
+        }
+        if (builder.stateCacheVisits < 0) {
+            throw new IllegalArgumentException("The visits to keep a state must not be negative: " + builder.stateCacheVisits);
+        }
+        this.numIterations = builder.numIterations;
+        this.explorationConstant = builder.explorationConstant;
+        this.parallelMode = Objects.requireNonNull(builder.parallelMode);
+        this.numThreads = parallelMode == ParallelMode.NONE ? 1 : builder.numThreads;
+        this.stateCacheVisits = builder.stateCacheVisits;
+        this.transpositions = builder.transpositions;
+        this.wideningCoefficient = builder.wideningCoefficient;
+        this.wideningExponent = builder.wideningExponent;
+        this.playoutEngine = Objects.requireNonNull(builder.playoutEngine);
+        this.raveEquivalence = builder.raveEquivalence;
+        this.solver = builder.solver;
+    }
+
+    /**
+     * Returns a builder of MCTSAlgorithm, by default single-threaded with 1000 iterations and an exploration constant of sqrt(2).
+     */
+    public static <E extends Action, T extends GameState<E>> Builder<E, T> builder() {
+        return new Builder<>();
     }
 
     /**
@@ -37,9 +124,7 @@ public class MCTSAlgorithm<E extends Action, T extends GameState<E>> implements
      */
     @Override
     public void initialize(T state) {
-        gameTree.clear();
-        rootNode = new MCTSNode<>(state, null);
-        gameTree.put(state, rootNode);
+        tree = new MCTSNodeStore<>(state, transpositions);
     }
 
     @Override
@@ -47,10 +132,17 @@ public class MCTSAlgorithm<E extends Action, T extends GameState<E>> implements
         this.utilityStrategy = strategy;
     }
 
+    /**
+     * Discards the trees and stops the worker threads, which are started again by the next parallel search.
+     */
     @Override
     public void reset() {
-        gameTree.clear();
-        rootNode = null;
+        tree = null;
+        workerTrees.clear();
+        if (workers != null) {
+            workers.shutdown(); // le ricerche in corso terminano comunque
+            workers = null;
+        }
     }
 
     /**
@@ -62,25 +154,304 @@ public class MCTSAlgorithm<E extends Action, T extends GameState<E>> implements
      */
     @Override
     public E chooseAction(T state) {
-        if (rootNode == null || !rootNode.getState().equals(state)) {
+        MCTSNodeStore<T, E> reused = tree != null ? reuseSubtree(tree, state) : null;
+        if (reused == null) {
             initialize(state);
+        } else {
+            tree = reused;
+        }
+        if (tree.getProof(MCTSNodeStore.ROOT) != MCTSNodeStore.UNPROVEN) {
+            // Il risultato e' gia' noto: non serve cercare
+            return getBestAction(tree);
         }
 
         long startTime = System.currentTimeMillis();
-        int iterations = 0;
+        long deadline = startTime + TIME_LIMIT_MS;
+        int iterations = switch (parallelMode) {
+            case NONE, LEAF -> search(tree, random, new AtomicInteger(), deadline);
+            case ROOT -> searchRootParallel(state, deadline);
+            case TREE -> searchTreeParallel(deadline);
+        };
+
+        System.out.println("MCTS completed " + iterations + " iterations in " + (System.currentTimeMillis() - startTime) + "ms");
+
+        return parallelMode == ParallelMode.ROOT ? getBestMergedAction() : getBestAction(tree);
+    }
 
-        //for (int i = 0; i < numIterations; i++) {
-            while(System.currentTimeMillis() - startTime < TIME_LIMIT_MS && iterations < numIterations) {
-            iterations++;
-            MCTSNode<T, E> selectedNode = select(rootNode);
-            MCTSNode<T, E> expandedNode = expand(selectedNode);
-            double reward = simulate(expandedNode);
-            backpropagate(expandedNode, reward);
+    /**
+     * Runs iterations from the root of the given tree until the deadline, until the shared simulation budget is used up
+     * or until the root is proven.
+     *
+     * @param tree      the tree to grow.
+     * @param random    the random generator of the calling thread.
+     * @param budget    the counter of the simulations started by all the threads.
+     * @param deadline  the time limit, in milliseconds.
+     * @return the number of simulations run.
+     */
+    private int search(MCTSNodeStore<T, E> tree, RandomGenerator random, AtomicInteger budget, long deadline) {
+        boolean virtualLoss = parallelMode == ParallelMode.TREE;
+        RandomGenerator[] playoutRandoms = parallelMode == ParallelMode.LEAF ? splitRandoms(numThreads) : null;
+        int playouts = playoutRandoms != null ? playoutRandoms.length : 1;
+        Cursor cursor = new Cursor(tree);
+        int simulations = 0;
+        while (System.currentTimeMillis() < deadline && tree.getProof(MCTSNodeStore.ROOT) == MCTSNodeStore.UNPROVEN
+                && budget.getAndAdd(playouts) < numIterations && !Thread.currentThread().isInterrupted()) {
+            select(cursor, virtualLoss);
+            int selectedDepth = cursor.depth;
+            expand(cursor, random);
+            byte proof = solver ? proveTerminal(cursor) : MCTSNodeStore.UNPROVEN;
+            if (proof != MCTSNodeStore.UNPROVEN) {
+                // Il risultato del nodo e' noto: niente simulazione
+                backpropagate(cursor, provenReward(proof) * playouts, playouts);
+                propagateProof(cursor);
+            } else if (playoutRandoms != null) {
+                double reward = simulateLeafParallel(cursor, playoutRandoms);
+                if (Double.isNaN(reward)) break;
+                backpropagate(cursor, reward, playouts);
+            } else {
+                double reward = simulate(tree, cursor.node, cursor.takeState(), random, raveEquivalence > 0 ? cursor : null);
+                backpropagate(cursor, reward, 1);
+            }
+            if (virtualLoss) {
+                removeVirtualLoss(cursor, selectedDepth);
+            }
+            simulations += playouts;
         }
+        return simulations;
+    }
 
-        System.out.println("MCTS completed " + iterations + " iterations in " + (System.currentTimeMillis() - startTime) + "ms");
+    /**
+     * The node reached by a thread during an iteration, with its state and the path from the root. The state is
+     * either kept by the tree, and then only read, or a private copy of the thread, on which the actions are played
+     * in place. The path is needed with transpositions, where the parent of a node is not always the node it was
+     * reached from.
+     */
+    private final class Cursor implements PlayoutEngine.MoveListener {
+        private final MCTSNodeStore<T, E> tree;
+        private int node;
+        private T state;
+        private boolean owned;
+        private int[] path = new int[64];
+        private int depth;
+        private BitSet[] playedActions = new BitSet[0]; // per giocatore, gli id delle azioni della simulazione
 
-        return getBestAction(rootNode);
+        private Cursor(MCTSNodeStore<T, E> tree) {
+            this.tree = tree;
+        }
+
+        private void reset() {
+            node = MCTSNodeStore.ROOT;
+            state = tree.getCachedState(node);
+            owned = false;
+            depth = 0;
+            path[0] = node;
+            for (BitSet actions : playedActions) {
+                actions.clear();
+            }
+        }
+
+        @Override
+        public void onMove(int player, int actionId) {
+            if (actionId >= 0) {
+                playedActions(player).set(actionId);
+            }
+        }
+
+        private BitSet playedActions(int player) {
+            if (player >= playedActions.length) {
+                int oldLength = playedActions.length;
+                playedActions = Arrays.copyOf(playedActions, player + 1);
+                for (int i = oldLength; i <= player; i++) {
+                    playedActions[i] = new BitSet();
+                }
+            }
+            return playedActions[player];
+        }
+
+        /**
+         * Moves to a child of the current node, replaying its action if the position of the child is not kept.
+         * A child visited often enough starts keeping a copy of the state of its position.
+         */
+        private void descend(int child) {
+            int position = tree.getPosition(child);
+            T cached = tree.getCachedState(position);
+            if (cached != null) {
+                state = cached;
+                owned = false;
+            } else {
+                play(tree.getAction(child));
+                if (tree.getVisits(child) >= stateCacheVisits) {
+                    tree.cacheState(position, copy(state));
+                }
+            }
+            enter(child);
+        }
+
+        /**
+         * Appends a child of the current node to the path, without changing the state.
+         */
+        private void enter(int child) {
+            if (++depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth] = child;
+            node = child;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void play(E action) {
+            if (!owned) {
+                state = copy(state);
+                owned = true;
+            }
+            if (state.supportsUndo()) {
+                state.doAction(action);
+            } else {
+                state = (T) applyPseudoAction(state, action);
+            }
+        }
+
+        /**
+         * Returns the state for the caller to modify. The cursor must be reset before its next use.
+         */
+        private T takeState() {
+            T taken = owned ? state : copy(state);
+            state = null;
+            owned = false;
+            return taken;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copy(T state) {
+        return (T) state.deepCopy();
+    }
+
+    private RandomGenerator[] splitRandoms(int count) {
+        RandomGenerator[] randoms = new RandomGenerator[count];
+        for (int i = 0; i < count; i++) {
+            randoms[i] = random.split();
+        }
+        return randoms;
+    }
+
+    /**
+     * Runs one playout per random generator from the node of the cursor on the worker threads.
+     *
+     * @param cursor  the node to start the playouts from.
+     * @param randoms the random generators, one for each playout.
+     * @return the total reward of the playouts, or NaN if the search has been interrupted.
+     */
+    private double simulateLeafParallel(Cursor cursor, RandomGenerator[] randoms) {
+        MCTSNodeStore<T, E> tree = cursor.tree;
+        int node = cursor.node;
+        if (tree.isTerminal(node)) {
+            // Le simulazioni da uno stato finale danno tutte lo stesso risultato
+            return simulate(tree, node, cursor.takeState(), randoms[0], null) * randoms.length;
+        }
+        List<Callable<Double>> playouts = new ArrayList<>(randoms.length);
+        for (RandomGenerator playoutRandom : randoms) {
+            T playoutState = copy(cursor.state);
+            playouts.add(() -> simulate(tree, node, playoutState, playoutRandom, null));
+        }
+        double reward = runAll(playouts);
+        return Thread.currentThread().isInterrupted() ? Double.NaN : reward;
+    }
+
+    /**
+     * Grows one independent tree per thread. The first thread grows the main tree, the others keep their own trees,
+     * which are reused across moves like the main one.
+     */
+    private int searchRootParallel(T state, long deadline) {
+        AtomicInteger budget = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>(numThreads);
+        MCTSNodeStore<T, E> mainTree = tree;
+        SplittableRandom mainRandom = random.split();
+        tasks.add(() -> search(mainTree, mainRandom, budget, deadline));
+        for (int worker = 0; worker < numThreads - 1; worker++) {
+            MCTSNodeStore<T, E> previousTree = worker < workerTrees.size() ? workerTrees.get(worker) : null;
+            MCTSNodeStore<T, E> reused = previousTree != null ? reuseSubtree(previousTree, state) : null;
+            MCTSNodeStore<T, E> workerTree = reused != null ? reused : new MCTSNodeStore<>(copy(state), transpositions);
+            if (worker < workerTrees.size()) {
+                workerTrees.set(worker, workerTree);
+            } else {
+                workerTrees.add(workerTree);
+            }
+            SplittableRandom workerRandom = random.split();
+            tasks.add(() -> search(workerTree, workerRandom, budget, deadline));
+        }
+        return (int) runAll(tasks);
+    }
+
+    /**
+     * Grows the main tree with all the threads at once.
+     */
+    private int searchTreeParallel(long deadline) {
+        AtomicInteger budget = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>(numThreads);
+        MCTSNodeStore<T, E> sharedTree = tree;
+        for (int worker = 0; worker < numThreads; worker++) {
+            SplittableRandom workerRandom = random.split();
+            tasks.add(() -> search(sharedTree, workerRandom, budget, deadline));
+        }
+        return (int) runAll(tasks);
+    }
+
+    /**
+     * Runs the tasks on the worker threads and waits for all of them.
+     *
+     * @return the sum of the results of the tasks.
+     */
+    private <R extends Number> double runAll(List<Callable<R>> tasks) {
+        double total = 0;
+        try {
+            for (Future<R> result : getWorkers().invokeAll(tasks)) {
+                total += result.get().doubleValue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("MCTS worker failed", e.getCause());
+        }
+        return total;
+    }
+
+    private ExecutorService getWorkers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(numThreads, task -> {
+                Thread thread = new Thread(task, "mcts-worker");
+                thread.setDaemon(true); // non impedisce la chiusura dell'applicazione
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Reuses the search of the previous move: if the given state is the root, or the state reached after the move
+     * of this player and the reply of the opponent, its subtree becomes a tree of its own and the rest is discarded.
+     *
+     * @param tree  the tree of the previous move.
+     * @param state the current game state.
+     * @return the tree rooted at the state, the given one if the state is its root, or null if the state is not in the tree.
+     */
+    private MCTSNodeStore<T, E> reuseSubtree(MCTSNodeStore<T, E> tree, T state) {
+        int node = findDescendant(tree, MCTSNodeStore.ROOT, state, state.stateKey(), 2);
+        if (node == MCTSNodeStore.NONE) return null;
+        return node == MCTSNodeStore.ROOT ? tree : tree.extractSubtree(node, tree.getState(node));
+    }
+
+    private int findDescendant(MCTSNodeStore<T, E> tree, int node, T state, long stateKey, int depth) {
+        if (tree.getStateKey(node) == stateKey && tree.getState(node).equals(state)) {
+            return node;
+        }
+        if (depth == 0) return MCTSNodeStore.NONE;
+        int position = tree.getPosition(node);
+        for (int child = tree.getFirstChild(position); child != MCTSNodeStore.NONE; child = tree.getNextSibling(child)) {
+            int found = findDescendant(tree, child, state, stateKey, depth - 1);
+            if (found != MCTSNodeStore.NONE) return found;
+        }
+        return MCTSNodeStore.NONE;
     }
 
     @Override
@@ -89,98 +460,443 @@ public class MCTSAlgorithm<E extends Action, T extends GameState<E>> implements
     }
 
     /**
-     * Selects a leaf node from the given starting node.
+     * Selects a leaf node from the root of the tree of the cursor, which is left on the selected node.
      *
-     * @param node the starting node.
+     * @param cursor      the cursor of the calling thread.
+     * @param virtualLoss whether a virtual loss is added to the nodes on the path, see {@link #removeVirtualLoss}.
      * @return the selected leaf node.
      */
-    private MCTSNode<T, E> select(MCTSNode<T, E> node) {
-        while (!node.isTerminal() && node.isFullyExpanded()) {
-            node = node.selectChild(explorationConstant);
+    private int select(Cursor cursor, boolean virtualLoss) {
+        MCTSNodeStore<T, E> tree = cursor.tree;
+        cursor.reset();
+        if (virtualLoss) tree.addVirtualLoss(cursor.node, 1);
+        while (!tree.isTerminal(cursor.node) && tree.getProof(tree.getPosition(cursor.node)) == MCTSNodeStore.UNPROVEN
+                && isFullyExpanded(tree, tree.getPosition(cursor.node))) {
+            int child = selectChild(tree, cursor.node, explorationConstant, raveEquivalence);
+            if (child == MCTSNodeStore.NONE) break; // i figli di un altro thread non sono ancora inseriti
+            byte proof = tree.getProof(tree.getPosition(child));
+            if ((proof == MCTSNodeStore.PROVEN_DRAW || proof == MCTSNodeStore.PROVEN_LOSS)
+                    && !tree.isFullyExpanded(tree.getPosition(cursor.node))) {
+                break; // con il progressive widening, meglio provare una nuova mossa
+            }
+            cursor.descend(child);
+            if (virtualLoss) tree.addVirtualLoss(cursor.node, 1);
+        }
+        return cursor.node;
+    }
+
+    /**
+     * Checks whether a position admits no more children: all its candidate actions have been expanded, or with
+     * progressive widening it already has as many children as its visits allow.
+     */
+    private boolean isFullyExpanded(MCTSNodeStore<T, E> tree, int position) {
+        if (tree.isFullyExpanded(position)) return true;
+        if (wideningCoefficient == 0) return false;
+        int visits = tree.hasTranspositions() ? tree.getPositionVisits(position) : tree.getVisits(position);
+        double allowedChildren = Math.max(1, wideningCoefficient * Math.pow(visits, wideningExponent));
+        return tree.getChildCount(position) >= allowedChildren;
+    }
+
+    /**
+     * Selects the child with the highest UCB value. Virtual losses count as visits with no reward.
+     * With transpositions the exploitation term is the mean reward of the position of the child, shared by all the
+     * move orders reaching it, while the exploration term uses the visits of the edge to the child.
+     * A child proven a win for the player to move is selected at once, and the other proven children only when all
+     * the children are proven, a draw before a loss.
+     *
+     * @param tree                the tree of the node.
+     * @param node                the parent node.
+     * @param explorationConstant the exploration constant.
+     * @return the selected child, or {@link MCTSNodeStore#NONE} if the node has no children.
+     */
+    static int selectChild(MCTSNodeStore<?, ?> tree, int node, double explorationConstant) {
+        return selectChild(tree, node, explorationConstant, 0);
+    }
+
+    /**
+     * Selects the child with the highest UCB value, blending the exploitation term with the all-moves-as-first mean
+     * reward of the child, see {@link Builder#rave}. Proven children are handled as in
+     * {@link #selectChild(MCTSNodeStore, int, double)}.
+     *
+     * @param tree                the tree of the node.
+     * @param node                the parent node.
+     * @param explorationConstant the exploration constant.
+     * @param raveEquivalence     the RAVE equivalence parameter, 0 for plain UCB.
+     * @return the selected child, or {@link MCTSNodeStore#NONE} if the node has no children.
+     */
+    static int selectChild(MCTSNodeStore<?, ?> tree, int node, double explorationConstant, double raveEquivalence) {
+        boolean transpositions = tree.hasTranspositions();
+        int position = tree.getPosition(node);
+        int parentVisits = transpositions ? tree.getPositionVisits(position) : tree.getVisits(node);
+        double logVisits = Math.log(parentVisits + tree.getVirtualLoss(node));
+        int best = MCTSNodeStore.NONE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int bestProven = MCTSNodeStore.NONE;
+        for (int child = tree.getFirstChild(position); child != MCTSNodeStore.NONE; child = tree.getNextSibling(child)) {
+            byte proof = tree.getProof(tree.getPosition(child));
+            if (proof == MCTSNodeStore.PROVEN_WIN) {
+                return child;
+            }
+            if (proof != MCTSNodeStore.UNPROVEN) {
+                if (bestProven == MCTSNodeStore.NONE || proof == MCTSNodeStore.PROVEN_DRAW) {
+                    bestProven = child;
+                }
+                continue;
+            }
+            int childVisits = tree.getVisits(child) + tree.getVirtualLoss(child);
+            if (childVisits == 0) {
+                return child;
+            }
+            double exploitation;
+            if (transpositions) {
+                int childPosition = tree.getPosition(child);
+                int positionVisits = Math.max(tree.getPositionVisits(childPosition), tree.getVisits(child));
+                exploitation = tree.getPositionReward(childPosition) / (positionVisits + tree.getVirtualLoss(child));
+            } else {
+                exploitation = tree.getReward(child) / childVisits;
+            }
+            int amafVisits = tree.getAmafVisits(child);
+            if (raveEquivalence > 0 && amafVisits > 0) {
+                double beta = Math.sqrt(raveEquivalence / (3.0 * childVisits + raveEquivalence));
+                exploitation = (1 - beta) * exploitation + beta * tree.getAmafReward(child) / amafVisits;
+            }
+            double exploration = Math.sqrt(logVisits / childVisits);
+            double value = exploitation + explorationConstant * exploration;
+            if (best == MCTSNodeStore.NONE || value > bestValue) {
+                best = child;
+                bestValue = value;
+            }
         }
-        return node;
+        return best != MCTSNodeStore.NONE ? best : bestProven;
     }
 
     /**
-     * If the leaf node isn't a terminal node, expands the game tree one time from the given leaf node.
+     * Removes the virtual loss added during the selection from the nodes of the path of the cursor.
      *
-     * @param node the leaf node to expand.
-     * @return the expanded node.
+     * @param cursor        the cursor of the calling thread.
+     * @param selectedDepth the depth of the selected node in the path.
      */
-    private MCTSNode<T, E> expand(MCTSNode<T, E> node) {
-        if (node.isTerminal()) return node;
+    private void removeVirtualLoss(Cursor cursor, int selectedDepth) {
+        for (int depth = selectedDepth; depth >= 0; depth--) {
+            cursor.tree.addVirtualLoss(cursor.path[depth], -1);
+        }
+    }
 
-        List<E> untriedActions = utilityStrategy.suggestStrategicMoves(node.getState(), node.getState().getCurrentPlayer());
-        //List<E> untriedActions = node.getUntriedActions();
-        if (untriedActions.isEmpty()) return node;
+    /**
+     * If the leaf node isn't a terminal or proven node, expands the game tree one time from the given leaf node
+     * with the next of its candidate actions, see {@link #setCandidates}.
+     * The cursor is left on the expanded node.
+     *
+     * @param cursor the cursor on the leaf node to expand.
+     * @param random the random generator of the calling thread.
+     */
+    private void expand(Cursor cursor, RandomGenerator random) {
+        MCTSNodeStore<T, E> tree = cursor.tree;
+        int node = tree.getPosition(cursor.node);
+        if (tree.isTerminal(node) || tree.getProof(node) != MCTSNodeStore.UNPROVEN) return;
 
-        E availableRandomAction = untriedActions.get(new Random().nextInt(untriedActions.size()));
-        MCTSNode<T, E> expandedNode = getOrCreateChild(node, availableRandomAction);
-        this.applyPseudoAction(expandedNode.getState(), availableRandomAction);
-        gameTree.put(expandedNode.getState(), expandedNode);
+        if (!tree.hasCandidates(node)) {
+            setCandidates(tree, node, cursor.state, random);
+        }
+        E untriedAction = tree.pollCandidate(node);
+        if (untriedAction == null) return;
 
-        return expandedNode;
+        cursor.play(untriedAction);
+        boolean keepState = stateCacheVisits == 0;
+        // Se un altro thread crea lo stesso figlio nel frattempo, vince il primo inserimento
+        cursor.enter(tree.addChildIfAbsent(node, untriedAction, cursor.state, keepState));
+        if (keepState && tree.getCachedState(cursor.node) == cursor.state) {
+            cursor.owned = false;
+        }
     }
 
-    public MCTSNode<T, E> getOrCreateChild(MCTSNode<T, E> node, E action) {
-        MCTSNode<T, E> child = node.getChildNodes().computeIfAbsent(action, a -> new MCTSNode<T, E>((T) node.getState().deepCopy(), node));
-        return child;
+    /**
+     * Sets the actions to expand a position with: the moves suggested by the utility strategy which are legal, without
+     * duplicates, or all the distinct actions if there are none. They are shuffled, so that taking them in order
+     * expands the node with random actions without replacement. With progressive widening they are then sorted by
+     * the utility of the state they lead to for the player to move, the best first.
+     *
+     * @param tree     the tree of the position.
+     * @param position the position.
+     * @param state    the state of the position.
+     * @param random   the random generator of the calling thread.
+     */
+    private void setCandidates(MCTSNodeStore<T, E> tree, int position, T state, RandomGenerator random) {
+        int player = tree.getPlayer(position);
+        Set<E> legalActions = new HashSet<>(state.getAvailableActions(player));
+        Set<E> suggestedActions = new LinkedHashSet<>();
+        for (E action : utilityStrategy.suggestStrategicMoves(state, player)) {
+            if (legalActions.contains(action)) {
+                suggestedActions.add(action);
+            }
+        }
+        List<E> candidates = new ArrayList<>(suggestedActions.isEmpty() ? state.getDistinctActions(player) : suggestedActions);
+        for (int i = candidates.size() - 1; i > 0; i--) {
+            Collections.swap(candidates, i, random.nextInt(i + 1));
+        }
+        // Solo se i candidati sono tutte le mosse la posizione puo' essere dimostrata dai suoi figli
+        boolean all = suggestedActions.isEmpty()
+                || solver && suggestedActions.containsAll(state.getDistinctActions(player));
+        if (wideningCoefficient == 0) {
+            tree.setCandidatesIfAbsent(position, candidates.toArray(), all);
+            return;
+        }
+
+        double[] priors = new double[candidates.size()];
+        utilityStrategy.calculateChildUtilities(state, candidates, player, priors);
+        Integer[] order = new Integer[priors.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // L'ordinamento e' stabile: a parita' di utilita' resta l'ordine casuale
+        Arrays.sort(order, (a, b) -> Double.compare(priors[b], priors[a]));
+        Object[] sorted = new Object[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = candidates.get(order[i]);
+        }
+        tree.setCandidatesIfAbsent(position, sorted, all);
     }
 
     /**
      * Performs a simulation from the given starting node then calls a back-propagation for every simulation node created.
      *
-     * @param node the startingNode to start the playout from.
+     * @param tree         the tree of the node.
+     * @param node         the startingNode to start the playout from.
+     * @param playoutState a private copy of the state of the node, played on until the end of the game by the
+     *                     {@link PlayoutEngine}.
+     * @param random       the random generator of the calling thread.
+     * @param listener     receives the moves of the playout, or null.
+     */
+    private double simulate(MCTSNodeStore<T, E> tree, int node, T playoutState, RandomGenerator random,
+                            PlayoutEngine.MoveListener listener) {
+        //List<E> actions = utilityStrategy.suggestStrategicMoves(playoutState, playoutState.getCurrentPlayer());
+        T terminalState = listener != null
+                ? playoutEngine.playout(playoutState, random, listener)
+                : playoutEngine.playout(playoutState, random);
+        return utilityStrategy.calculateUtility(terminalState, getMovingPlayer(tree, node));
+    }
+
+    /**
+     * Returns the player who made the move leading to the given node, whose point of view is used for the node's rewards.
+     */
+    private int getMovingPlayer(MCTSNodeStore<T, E> tree, int node) {
+        int parent = tree.getParent(node);
+        return parent != MCTSNodeStore.NONE ? tree.getPlayer(parent) : 1 - tree.getPlayer(node);
+    }
+
+    /**
+     * Performs back-propagation to update the visits and score of all nodes on the path of the cursor with the results
+     * obtained from the simulation until it reaches the root node. With transpositions the positions of the nodes
+     * are updated too, and with RAVE the all-moves-as-first statistics of their children. In leaf mode the moves of
+     * the parallel playouts are not recorded, so RAVE is not updated.
+     *
+     * @param cursor the cursor on the starting node to perform the back-propagation step.
+     * @param reward the total reward of the simulations for the visited node.
+     * @param visits the number of simulations.
      */
-    private double simulate(MCTSNode<T, E> node) {
-        MCTSNode<T, E> terminalNode = new MCTSNode<>((T) node.getState().deepCopy(), node.getParentNode());
-        while (!terminalNode.getState().isTerminalNode()) {
-            //List<E> actions = utilityStrategy.suggestStrategicMoves(terminalNode.getState(), terminalNode.getState().getCurrentPlayer());
-            List<E> actions = terminalNode.getState().getAvailableActions(terminalNode.getState().getCurrentPlayer());
-            E randomAction = actions.get(new Random().nextInt(actions.size()));
-            this.applyPseudoAction(terminalNode.getState(), randomAction);
+    private void backpropagate(Cursor cursor, double reward, int visits) {
+        MCTSNodeStore<T, E> tree = cursor.tree;
+        boolean transpositions = tree.hasTranspositions();
+        boolean rave = raveEquivalence > 0 && parallelMode != ParallelMode.LEAF;
+        for (int depth = cursor.depth; depth >= 0; depth--) {
+            int node = cursor.path[depth];
+            tree.addStats(node, reward, visits);
+            if (transpositions) {
+                tree.addPositionStats(tree.getPosition(node), reward, visits);
+            }
+            reward = visits - reward; // Invert reward for opponent
+            if (rave) {
+                // reward e' ora dal punto di vista di chi muove nel nodo, cioe' dei suoi figli
+                updateAmaf(cursor, node, reward, visits);
+                if (depth > 0) {
+                    cursor.onMove(tree.getPlayer(cursor.path[depth - 1]), tree.getActionId(node));
+                }
+            }
         }
-        return utilityStrategy.calculateUtility(terminalNode.getState(), node.getState().getCurrentPlayer());
     }
 
     /**
-     * Performs back-propagation to update the visits and score of all nodes with the results obtained from the simulation until it reaches the root node.
+     * Updates the all-moves-as-first statistics of the children of a node on the path whose actions have been played
+     * later in the simulation by the player to move in the node.
+     */
+    private void updateAmaf(Cursor cursor, int node, double reward, int visits) {
+        MCTSNodeStore<T, E> tree = cursor.tree;
+        int player = tree.getPlayer(node);
+        if (player >= cursor.playedActions.length) return;
+        BitSet actions = cursor.playedActions[player];
+        for (int child = tree.getFirstChild(tree.getPosition(node)); child != MCTSNodeStore.NONE; child = tree.getNextSibling(child)) {
+            int actionId = tree.getActionId(child);
+            if (actionId >= 0 && actions.get(actionId)) {
+                tree.addAmafStats(child, reward, visits);
+            }
+        }
+    }
+
+    /**
+     * Proves the node of the cursor if it is terminal and not proven yet, from the utility of its state for the
+     * player who moved into it compared to the utility for the opponent. The solver assumes two players taking turns,
+     * so the opponent is the player to move in the terminal state.
      *
-     * @param node   the starting node to perform the back-propagation step.
-     * @param reward the reward for the visited node.
+     * @param cursor the cursor on the node, with its state.
+     * @return the proof of the node, {@link MCTSNodeStore#UNPROVEN} if it is not proven.
      */
-    private void backpropagate(MCTSNode<T, E> node, double reward) {
-        while (node != null) {
-            node.updateNodeStats(reward);
-            node = node.getParentNode();
-            reward = 1 - reward; // Invert reward for opponent
+    private byte proveTerminal(Cursor cursor) {
+        MCTSNodeStore<T, E> tree = cursor.tree;
+        int position = tree.getPosition(cursor.node);
+        byte proof = tree.getProof(position);
+        if (proof != MCTSNodeStore.UNPROVEN || !tree.isTerminal(position)) {
+            return proof;
+        }
+        int player = getMovingPlayer(tree, cursor.node);
+        if (cursor.state.isTie()) {
+            proof = MCTSNodeStore.PROVEN_DRAW;
+        } else {
+            double utility = utilityStrategy.calculateUtility(cursor.state, player);
+            double opponentUtility = utilityStrategy.calculateUtility(cursor.state, cursor.state.getCurrentPlayer());
+            proof = utility > opponentUtility ? MCTSNodeStore.PROVEN_WIN
+                    : utility < opponentUtility ? MCTSNodeStore.PROVEN_LOSS : MCTSNodeStore.PROVEN_DRAW;
         }
+        tree.setProof(position, proof);
+        return proof;
     }
 
     /**
-     * Select the best action of the given node based on the ratio of reward to visits.
+     * Returns the reward of a simulation from a proven node.
+     */
+    static double provenReward(byte proof) {
+        return switch (proof) {
+            case MCTSNodeStore.PROVEN_WIN -> 1.0;
+            case MCTSNodeStore.PROVEN_LOSS -> 0.0;
+            default -> 0.5;
+        };
+    }
+
+    /**
+     * Propagates the proof of the node of the cursor towards the root along its path, with the minimax rules: a
+     * position is a loss for the player who moved into it if one of its children is a win for the player to move,
+     * and once all its distinct actions are proven children, a draw if one of them is a draw and a win otherwise.
+     * The propagation stops at the first position that cannot be proven yet.
      *
-     * @param node the node from which to find the actions.
+     * @param cursor the cursor on a proven node.
+     */
+    private void propagateProof(Cursor cursor) {
+        MCTSNodeStore<T, E> tree = cursor.tree;
+        for (int depth = cursor.depth - 1; depth >= 0; depth--) {
+            int position = tree.getPosition(cursor.path[depth]);
+            if (tree.getProof(position) != MCTSNodeStore.UNPROVEN) {
+                continue; // dimostrata da un altro percorso, ma il padre potrebbe non saperlo
+            }
+            byte proof = proveFromChildren(tree, position);
+            if (proof == MCTSNodeStore.UNPROVEN) return;
+            tree.setProof(position, proof);
+        }
+    }
+
+    private static byte proveFromChildren(MCTSNodeStore<?, ?> tree, int position) {
+        boolean allProven = tree.hasAllChildren(position);
+        boolean draw = false;
+        for (int child = tree.getFirstChild(position); child != MCTSNodeStore.NONE; child = tree.getNextSibling(child)) {
+            byte proof = tree.getProof(tree.getPosition(child));
+            if (proof == MCTSNodeStore.PROVEN_WIN) {
+                return MCTSNodeStore.PROVEN_LOSS;
+            }
+            if (proof == MCTSNodeStore.UNPROVEN) {
+                allProven = false;
+            } else if (proof == MCTSNodeStore.PROVEN_DRAW) {
+                draw = true;
+            }
+        }
+        if (!allProven) return MCTSNodeStore.UNPROVEN;
+        return draw ? MCTSNodeStore.PROVEN_DRAW : MCTSNodeStore.PROVEN_WIN;
+    }
+
+    /**
+     * Select the best action of the root of the given tree based on the ratio of reward to visits.
+     * A child proven a win is always chosen, and a child proven a loss only if all the others are.
+     *
+     * @param tree the tree from whose root to find the actions.
      * @return the best action.
      */
-    private E getBestAction(MCTSNode<T, E> node) {
-        if (node.getChildNodes().isEmpty()) {
+    private E getBestAction(MCTSNodeStore<T, E> tree) {
+        int best = MCTSNodeStore.NONE;
+        double bestValue = 0;
+        for (int child = tree.getFirstChild(MCTSNodeStore.ROOT); child != MCTSNodeStore.NONE; child = tree.getNextSibling(child)) {
+            byte proof = tree.getProof(tree.getPosition(child));
+            if (proof == MCTSNodeStore.PROVEN_WIN) {
+                return tree.getAction(child);
+            }
+            double value = tree.getReward(child) / tree.getVisits(child);
+            if (proof == MCTSNodeStore.PROVEN_LOSS) {
+                value -= 2; // sotto tutte le ricompense medie, che sono tra 0 e 1
+            }
+            if (best == MCTSNodeStore.NONE || value > bestValue) {
+                best = child;
+                bestValue = value;
+            }
+        }
+        if (best == MCTSNodeStore.NONE) {
             // Se non ci sono figli, restituisci un'azione casuale dallo stato corrente
-            List<E> availableActions = node.getState().getAvailableActions(node.getState().getCurrentPlayer());
-            return availableActions.get(new Random().nextInt(availableActions.size()));
+            T state = tree.getState(MCTSNodeStore.ROOT);
+            return state.getRandomAction(state.getCurrentPlayer(), random);
         }
-        return node.getChildNodes().entrySet().stream()
-                .max(Comparator.comparingDouble(e -> e.getValue().getTotalReward() / e.getValue().getVisitCount()))
+        return tree.getAction(best);
+    }
+
+    /**
+     * Selects the best action by merging the statistics of the root children of all the trees grown in root mode,
+     * unless one of the trees has proven its root. An action proven a loss in any tree is chosen only if all are.
+     *
+     * @return the best action.
+     */
+    private E getBestMergedAction() {
+        for (MCTSNodeStore<T, E> workerTree : workerTrees) {
+            if (workerTree.getProof(MCTSNodeStore.ROOT) != MCTSNodeStore.UNPROVEN) {
+                return getBestAction(workerTree);
+            }
+        }
+        if (tree.getProof(MCTSNodeStore.ROOT) != MCTSNodeStore.UNPROVEN) {
+            return getBestAction(tree);
+        }
+        Map<E, double[]> merged = new HashMap<>(); // azione -> {visite, ricompensa totale, 1 se persa}
+        mergeRootStatistics(tree, merged);
+        for (MCTSNodeStore<T, E> workerTree : workerTrees) {
+            mergeRootStatistics(workerTree, merged);
+        }
+        if (merged.isEmpty()) {
+            return getBestAction(tree);
+        }
+        return merged.entrySet().stream()
+                .max(Comparator.comparingDouble(e -> e.getValue()[1] / e.getValue()[0] - 2 * e.getValue()[2]))
                 .map(Map.Entry::getKey)
                 .orElseThrow(() -> new IllegalStateException("No children found"));
     }
 
+    private void mergeRootStatistics(MCTSNodeStore<T, E> tree, Map<E, double[]> merged) {
+        for (int child = tree.getFirstChild(MCTSNodeStore.ROOT); child != MCTSNodeStore.NONE; child = tree.getNextSibling(child)) {
+            double[] statistics = merged.computeIfAbsent(tree.getAction(child), action -> new double[3]);
+            statistics[0] += tree.getVisits(child);
+            statistics[1] += tree.getReward(child);
+            if (tree.getProof(tree.getPosition(child)) == MCTSNodeStore.PROVEN_LOSS) {
+                statistics[2] = 1;
+            }
+        }
+    }
+
     /**
-     * Gets the game tree.
+     * Gets the game tree, mapping the state of every node of the main tree to a view of the node.
+     * The map is built on each call.
      *
      * @return the game tree.
      */
     public Map<T, MCTSNode<T, E>> getGameTree() {
+        Map<T, MCTSNode<T, E>> gameTree = new HashMap<>();
+        if (tree != null) {
+            for (int node = 0; node < tree.size(); node++) {
+                if (!tree.isDetached(node)) {
+                    gameTree.put(tree.getState(node), new MCTSNode<>(tree, node));
+                }
+            }
+        }
         return gameTree;
     }
 
@@ -190,6 +906,144 @@ public class MCTSAlgorithm<E extends Action, T extends GameState<E>> implements
      * @return the root node.
      */
     public MCTSNode<T, E> getRootNode() {
-        return rootNode;
+        return tree != null ? new MCTSNode<>(tree, MCTSNodeStore.ROOT) : null;
+    }
+
+    /**
+     * Gets the root nodes of all the trees, the main one first and then those of the other workers in root mode.
+     */
+    List<MCTSNode<T, E>> getRootNodes() {
+        List<MCTSNode<T, E>> roots = new ArrayList<>();
+        if (tree != null) {
+            roots.add(new MCTSNode<>(tree, MCTSNodeStore.ROOT));
+            for (MCTSNodeStore<T, E> workerTree : workerTrees) {
+                roots.add(new MCTSNode<>(workerTree, MCTSNodeStore.ROOT));
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Builds a {@link MCTSAlgorithm}.
+     */
+    public static final class Builder<E extends Action, T extends GameState<E>> {
+        private int numIterations = 1000;
+        private double explorationConstant = Math.sqrt(2);
+        private ParallelMode parallelMode = ParallelMode.NONE;
+        private int numThreads = Runtime.getRuntime().availableProcessors();
+        private int stateCacheVisits = 0;
+        private boolean transpositions = false;
+        private double wideningCoefficient = 0;
+        private double wideningExponent = 0.5;
+        private PlayoutEngine<T, E> playoutEngine = PlayoutEngine.random();
+        private double raveEquivalence = 0;
+        private boolean solver = false;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of simulations to run for each move, shared by all the threads.
+         */
+        public Builder<E, T> iterations(int numIterations) {
+            this.numIterations = numIterations;
+            return this;
+        }
+
+        /**
+         * Sets the exploration constant used in UCB.
+         */
+        public Builder<E, T> explorationConstant(double explorationConstant) {
+            this.explorationConstant = explorationConstant;
+            return this;
+        }
+
+        /**
+         * Sets how the search is spread over the threads.
+         */
+        public Builder<E, T> parallelMode(ParallelMode parallelMode) {
+            this.parallelMode = parallelMode;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads of the parallel modes, by default the number of available processors.
+         */
+        public Builder<E, T> threads(int numThreads) {
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        /**
+         * Sets after how many visits a node keeps its state. By default 0: every node keeps its state from its creation.
+         * With a positive value the other nodes store only their action, and their state is rebuilt by replaying the
+         * actions from the nearest ancestor keeping one, which saves most of the memory of the tree.
+         */
+        public Builder<E, T> stateCacheVisits(int stateCacheVisits) {
+            this.stateCacheVisits = stateCacheVisits;
+            return this;
+        }
+
+        /**
+         * Sets whether the nodes reaching the same position through different move orders share it, turning the tree
+         * into a graph of positions. The visits spent on one move order then inform all the others. By default false.
+         * The game must not be able to repeat a position.
+         */
+        public Builder<E, T> transpositions(boolean transpositions) {
+            this.transpositions = transpositions;
+            return this;
+        }
+
+        /**
+         * Enables progressive widening: a node visited n times has at most {@code max(1, coefficient * n^exponent)}
+         * children, admitted in decreasing order of the utility of their state for the player to move, see
+         * {@link UtilityStrategy#calculateChildUtilities}. A coefficient of 0, the default, disables it.
+         *
+         * @param coefficient the number of children per unit of the visits to the power of the exponent.
+         * @param exponent    the exponent of the visits, between 0 exclusive and 1 inclusive.
+         */
+        public Builder<E, T> progressiveWidening(double coefficient, double exponent) {
+            this.wideningCoefficient = coefficient;
+            this.wideningExponent = exponent;
+            return this;
+        }
+
+        /**
+         * Sets the engine playing the simulations, by default {@link PlayoutEngine#random()}.
+         */
+        public Builder<E, T> playoutEngine(PlayoutEngine<T, E> playoutEngine) {
+            this.playoutEngine = playoutEngine;
+            return this;
+        }
+
+        /**
+         * Enables RAVE: the value of a child blends its mean reward with its all-moves-as-first mean reward, collected
+         * from every simulation through the parent where the same player played the action of the child later on.
+         * The weight of the all-moves-as-first value is {@code sqrt(k / (3n + k))} for a child visited n times, so it
+         * fades as the child gathers visits of its own. Actions are matched by {@link Action#getId}, so the actions
+         * of the game must have ids. A value of 0, the default, disables RAVE.
+         *
+         * @param equivalence the visits k at which both values have about the same weight.
+         */
+        public Builder<E, T> rave(double equivalence) {
+            this.raveEquivalence = equivalence;
+            return this;
+        }
+
+        /**
+         * Enables the MCTS-Solver: terminal nodes are proven a win, a draw or a loss, and the proofs are propagated
+         * towards the root with the minimax rules. Proven nodes are no longer simulated nor selected while their
+         * siblings are unproven, and the search ends as soon as the root is proven. By default false.
+         * The game must have two players taking turns, and the utility of a terminal state must be higher for the
+         * winner, see {@link UtilityStrategy#calculateUtility}.
+         */
+        public Builder<E, T> solver(boolean solver) {
+            this.solver = solver;
+            return this;
+        }
+
+        public MCTSAlgorithm<E, T> build() {
+            return new MCTSAlgorithm<>(this);
+        }
     }
-}
\ No newline at end of file
+}
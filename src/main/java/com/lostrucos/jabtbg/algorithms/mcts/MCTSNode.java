@@ -7,26 +7,22 @@ import java.util.*;
 
 /**
  * Represents a node in the Monte Carlo Tree Search (MCTS) algorithm.
+ * The nodes are stored in a {@link MCTSNodeStore}: an MCTSNode is a lightweight view of one of them,
+ * created on demand for the callers outside the search, e.g. the user interface.
  */
 public class MCTSNode<T extends GameState<E>, E extends Action> {
-    private T state;
-    private MCTSNode<T, E> parentNode;
-    private Map<E, MCTSNode<T, E>> childNodes;
-    private double totalReward;
-    private int visitCount;
+    private final MCTSNodeStore<T, E> store;
+    private final int handle;
 
     /**
-     * Constructs a new MCTSNode.
+     * Constructs a view of a node.
      *
-     * @param state  the game state represented by this node.
-     * @param parentNode the parent node.
+     * @param store  the store of the tree.
+     * @param handle the handle of the node in the store.
      */
-    public MCTSNode(T state, MCTSNode<T, E> parentNode) {
-        this.state = state;
-        this.parentNode = parentNode;
-        this.childNodes = new HashMap<>();
-        this.totalReward = 0.0;
-        this.visitCount = 0;
+    MCTSNode(MCTSNodeStore<T, E> store, int handle) {
+        this.store = store;
+        this.handle = handle;
     }
 
     /**
@@ -35,63 +31,84 @@ public class MCTSNode<T extends GameState<E>, E extends Action> {
      * @return true if this node is terminal, false otherwise.
      */
     public boolean isTerminal() {
-        return state.isTerminalNode();
+        return store.isTerminal(handle);
     }
 
-    public boolean isFullyExpanded() {
-        return childNodes.size() == state.getAvailableActions(state.getCurrentPlayer()).size();
+    /**
+     * Checks if the search has proven the result of this node, see {@link MCTSAlgorithm.Builder#solver}.
+     *
+     * @return true if this node is a proven win, draw or loss, false otherwise.
+     */
+    public boolean isProven() {
+        return store.getProof(store.getPosition(handle)) != MCTSNodeStore.UNPROVEN;
     }
 
     /**
-     * Selects the best action from this node using UCB.
+     * Gets the proven result of this node for the player who moved into it, on the scale of the rewards.
      *
-     * @param explorationConstant the exploration constant.
-     * @return the selected action.
+     * @return 1 for a win, 0.5 for a draw and 0 for a loss.
      */
-    public MCTSNode<T, E> selectChild(double explorationConstant) {
-        return childNodes.values().stream()
-                .max(Comparator.comparingDouble(child -> calculateUCB(child, explorationConstant)))
-                .orElseThrow(() -> new IllegalStateException("No children to select"));
+    double getProvenReward() {
+        byte proof = store.getProof(store.getPosition(handle));
+        if (proof == MCTSNodeStore.UNPROVEN) {
+            throw new IllegalStateException("The node is not proven");
+        }
+        return MCTSAlgorithm.provenReward(proof);
+    }
+
+    public boolean isFullyExpanded() {
+        return store.isFullyExpanded(store.getPosition(handle));
     }
 
     /**
-     * Gets the UCB value for this node.
+     * Selects the best action from this node using UCB.
      *
      * @param explorationConstant the exploration constant.
-     * @return the UCB value.
+     * @return the selected action.
      */
-    private double calculateUCB(MCTSNode<T, E> child, double explorationConstant) {
-        if (child.visitCount == 0) {
-            return Double.POSITIVE_INFINITY;
+    public MCTSNode<T, E> selectChild(double explorationConstant) {
+        int best = MCTSAlgorithm.selectChild(store, handle, explorationConstant);
+        if (best == MCTSNodeStore.NONE) {
+            throw new IllegalStateException("No children to select");
         }
-        double exploitation = child.totalReward / child.visitCount;
-        double exploration = Math.sqrt(Math.log(this.visitCount) / child.visitCount);
-        return exploitation + explorationConstant * exploration;
+        return new MCTSNode<>(store, best);
     }
 
     public List<E> getUntriedActions() {
-        List<E> availableActions = state.getAvailableActions(state.getCurrentPlayer());
-        availableActions.removeAll(childNodes.keySet());
+        List<E> candidates = store.getRemainingCandidates(store.getPosition(handle));
+        if (candidates != null) return candidates;
+        List<E> availableActions = new ArrayList<>(getState().getDistinctActions(getState().getCurrentPlayer()));
+        availableActions.removeAll(getChildNodes().keySet());
         return availableActions;
     }
 
     /**
-     * Updates the statistics of this node.
+     * Gets the child reached with the given action.
      *
-     * @param reward the value to update with.
+     * @param action the action leading to the child.
+     * @return the child node, or null if it has not been created yet.
      */
-    public void updateNodeStats(double reward) {
-        this.visitCount++;
-        this.totalReward += reward;
+    public MCTSNode<T, E> getChild(E action) {
+        int child = store.findChild(store.getPosition(handle), action);
+        return child == MCTSNodeStore.NONE ? null : new MCTSNode<>(store, child);
     }
 
     /**
-     * Gets the game state represented by this node.
+     * Gets the game state represented by this node, rebuilt from an ancestor if the node does not keep it.
      *
-     * @return the game state.
+     * @return the game state, which must not be modified.
      */
     public T getState() {
-        return state;
+        return store.getState(handle);
+    }
+
+    /**
+     * Gets the action leading to this node.
+     *
+     * @return the action, or null for the root.
+     */
+    public E getAction() {
+        return store.getAction(handle);
     }
 
     /**
@@ -100,16 +117,21 @@ public class MCTSNode<T extends GameState<E>, E extends Action> {
      * @return the parent node of this node.
      */
     public MCTSNode<T, E> getParentNode() {
-        return parentNode;
+        int parent = store.getParent(handle);
+        return parent == MCTSNodeStore.NONE ? null : new MCTSNode<>(store, parent);
     }
 
     /**
-     * Gets the child nodes.
+     * Gets the child nodes, which are shared by all the nodes of the same position when the search uses transpositions.
      *
      * @return a map of actions to child nodes.
      */
     public Map<E, MCTSNode<T, E>> getChildNodes() {
-        return childNodes;
+        Map<E, MCTSNode<T, E>> children = new LinkedHashMap<>();
+        for (int child = store.getFirstChild(store.getPosition(handle)); child != MCTSNodeStore.NONE; child = store.getNextSibling(child)) {
+            children.put(store.getAction(child), new MCTSNode<>(store, child));
+        }
+        return children;
     }
 
     /**
@@ -118,7 +140,7 @@ public class MCTSNode<T extends GameState<E>, E extends Action> {
      * @return the reward score of the node
      */
     public double getTotalReward() {
-        return totalReward;
+        return store.getReward(handle);
     }
 
     /**
@@ -127,7 +149,7 @@ public class MCTSNode<T extends GameState<E>, E extends Action> {
      * @return the number of times the node has been visited
      */
     public int getVisitCount() {
-        return visitCount;
+        return store.getVisits(handle);
     }
 
     @Override
@@ -135,25 +157,25 @@ public class MCTSNode<T extends GameState<E>, E extends Action> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MCTSNode<?, ?> mctsNode = (MCTSNode<?, ?>) o;
-        return Objects.equals(state, mctsNode.state);
+        return store == mctsNode.store && handle == mctsNode.handle;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(state);
+        return Objects.hash(System.identityHashCode(store), handle);
     }
 
     @Override
     public String toString() {
         return "MCTSNode{" +
-                "state=" + state +
-                ", visitCount=" + visitCount +
-                ", totalReward=" + totalReward +
-                ", childNodes=" + childNodes.size() +
+                "state=" + getState() +
+                ", visitCount=" + getVisitCount() +
+                ", totalReward=" + getTotalReward() +
+                ", childNodes=" + store.getChildCount(store.getPosition(handle)) +
                 '}';
     }
 
     public int numOfLegalActions(){
-        return this.getState().getAvailableActions(getState().getCurrentPlayer()).size();
+        return store.getLegalActions(store.getPosition(handle));
     }
-}
\ No newline at end of file
+}
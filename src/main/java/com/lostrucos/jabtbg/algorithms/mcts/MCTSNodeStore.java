@@ -0,0 +1,610 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import com.lostrucos.jabtbg.core.Action;
+import com.lostrucos.jabtbg.core.GameState;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Arena of MCTS nodes stored as structure of arrays and addressed by int handles. The root is always handle 0.
+ * Nodes are allocated in chunks of {@link #CHUNK_SIZE}: growing the tree adds a chunk and never copies the nodes.
+ * Children form a linked list through the first-child and next-sibling columns.
+ * A node may or may not keep its state: the state of the root is always kept, the others can be rebuilt by replaying
+ * the actions from the nearest ancestor keeping one, see {@link #getState}. Whether the node is terminal, the player
+ * to move and the key of the state are recorded for every node.
+ * <p>
+ * With transpositions, nodes reaching the same position share it: the first node of a position owns its children
+ * and the statistics of the position, and every later node with the same key refers to it through
+ * {@link #getPosition}. The statistics of each node are then those of the edge from its parent, so the nodes form
+ * a graph of positions with one edge per node. Without transpositions every node is its own position.
+ * <p>
+ * The actions to expand a position are computed once and popped from a queue of candidates, so that each of them
+ * becomes a child only once; the position is fully expanded when the queue is empty.
+ * A position can be proven a win, a draw or a loss for the player who moved into it, see {@link #getProof}.
+ * Positions are matched by state key, and also by state when both states are kept; games where a position can
+ * repeat must not use transpositions.
+ * Statistics are updated atomically and each child is inserted only once, so the threads of a tree-parallel search
+ * can share a store. Reads of the statistics are not synchronized and may be slightly stale.
+ */
+final class MCTSNodeStore<T extends GameState<E>, E extends Action> {
+    static final int NONE = -1;
+    static final int ROOT = 0;
+    static final int CHUNK_SIZE = 1 << 12;
+    static final byte UNPROVEN = 0;
+    static final byte PROVEN_WIN = 1;
+    static final byte PROVEN_DRAW = 2;
+    static final byte PROVEN_LOSS = 3;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final VarHandle BYTE_ELEMENT = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle INT_ELEMENT = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle DOUBLE_ELEMENT = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle OBJECT_ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /**
+     * The columns of {@link #CHUNK_SIZE} consecutive nodes.
+     */
+    private static final class Chunk {
+        final int[] parent = new int[CHUNK_SIZE];
+        final int[] firstChild = new int[CHUNK_SIZE];
+        final int[] nextSibling = new int[CHUNK_SIZE];
+        final int[] childCount = new int[CHUNK_SIZE];
+        final int[] legalActions = new int[CHUNK_SIZE];
+        final int[] actionId = new int[CHUNK_SIZE];
+        final Object[] action = new Object[CHUNK_SIZE];
+        final Object[] state = new Object[CHUNK_SIZE];
+        final boolean[] terminal = new boolean[CHUNK_SIZE];
+        final int[] player = new int[CHUNK_SIZE];
+        final long[] stateKey = new long[CHUNK_SIZE];
+        final int[] visits = new int[CHUNK_SIZE];
+        final double[] reward = new double[CHUNK_SIZE];
+        final int[] virtualLoss = new int[CHUNK_SIZE];
+        final int[] position = new int[CHUNK_SIZE];
+        final int[] positionVisits = new int[CHUNK_SIZE];
+        final double[] positionReward = new double[CHUNK_SIZE];
+        final Object[] candidates = new Object[CHUNK_SIZE];
+        final int[] nextCandidate = new int[CHUNK_SIZE];
+        final boolean[] allCandidates = new boolean[CHUNK_SIZE];
+        final byte[] proof = new byte[CHUNK_SIZE];
+        final int[] amafVisits = new int[CHUNK_SIZE];
+        final double[] amafReward = new double[CHUNK_SIZE];
+    }
+
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Chunk[] chunks = new Chunk[16];
+    private final Map<Long, Integer> positions; // chiave dello stato -> nodo della posizione, solo con trasposizioni
+
+    /**
+     * Creates a store holding only the root.
+     *
+     * @param rootState      the state of the root.
+     * @param transpositions whether nodes reaching the same position share it.
+     */
+    MCTSNodeStore(T rootState, boolean transpositions) {
+        this(transpositions);
+        int root = allocate(NONE, null, rootState, true);
+        if (positions != null) {
+            positions.put(getStateKey(root), root);
+        }
+    }
+
+    private MCTSNodeStore(boolean transpositions) {
+        positions = transpositions ? new ConcurrentHashMap<>() : null;
+    }
+
+    boolean hasTranspositions() {
+        return positions != null;
+    }
+
+    private Chunk chunk(int node) {
+        return chunks[node >>> CHUNK_BITS];
+    }
+
+    /**
+     * Returns the number of allocated nodes.
+     */
+    int size() {
+        return size.get();
+    }
+
+    private int allocate(int parent, E action, T state, boolean keepState) {
+        int node = allocate(parent, action);
+        Chunk chunk = chunk(node);
+        int offset = node & CHUNK_MASK;
+        chunk.state[offset] = keepState ? state : null;
+        chunk.terminal[offset] = state.isTerminalNode();
+        chunk.player[offset] = state.getCurrentPlayer();
+        chunk.stateKey[offset] = state.stateKey();
+        return node;
+    }
+
+    private int allocate(int parent, E action) {
+        int node = size.getAndIncrement();
+        int chunkIndex = node >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (chunkIndex >= current.length || current[chunkIndex] == null) {
+            addChunk(chunkIndex);
+        }
+        Chunk chunk = chunk(node);
+        int offset = node & CHUNK_MASK;
+        chunk.parent[offset] = parent;
+        chunk.firstChild[offset] = NONE;
+        chunk.nextSibling[offset] = NONE;
+        chunk.childCount[offset] = 0;
+        chunk.legalActions[offset] = -1;
+        chunk.actionId[offset] = action != null ? action.getId() : -1;
+        chunk.action[offset] = action;
+        chunk.state[offset] = null;
+        chunk.visits[offset] = 0;
+        chunk.reward[offset] = 0.0;
+        chunk.virtualLoss[offset] = 0;
+        chunk.position[offset] = node;
+        chunk.positionVisits[offset] = 0;
+        chunk.positionReward[offset] = 0.0;
+        chunk.candidates[offset] = null;
+        chunk.nextCandidate[offset] = 0;
+        chunk.allCandidates[offset] = false;
+        chunk.proof[offset] = UNPROVEN;
+        chunk.amafVisits[offset] = 0;
+        chunk.amafReward[offset] = 0.0;
+        return node;
+    }
+
+    private synchronized void addChunk(int chunkIndex) {
+        Chunk[] current = chunks;
+        if (chunkIndex >= current.length) {
+            current = Arrays.copyOf(current, Math.max(chunkIndex + 1, current.length * 2));
+        }
+        if (current[chunkIndex] == null) {
+            current[chunkIndex] = new Chunk();
+        }
+        chunks = current;
+    }
+
+    int getParent(int node) {
+        return chunk(node).parent[node & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the node owning the position of the given node, which is the node itself without transpositions.
+     */
+    int getPosition(int node) {
+        return chunk(node).position[node & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the visits of a position, summed over all the nodes reaching it. Only kept with transpositions.
+     */
+    int getPositionVisits(int position) {
+        return chunk(position).positionVisits[position & CHUNK_MASK];
+    }
+
+    double getPositionReward(int position) {
+        return chunk(position).positionReward[position & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the first child of the node, or {@link #NONE}. The others follow through {@link #getNextSibling}.
+     */
+    int getFirstChild(int node) {
+        return (int) INT_ELEMENT.getVolatile(chunk(node).firstChild, node & CHUNK_MASK);
+    }
+
+    int getNextSibling(int node) {
+        return chunk(node).nextSibling[node & CHUNK_MASK];
+    }
+
+    int getChildCount(int node) {
+        return (int) INT_ELEMENT.getVolatile(chunk(node).childCount, node & CHUNK_MASK);
+    }
+
+    @SuppressWarnings("unchecked")
+    E getAction(int node) {
+        return (E) chunk(node).action[node & CHUNK_MASK];
+    }
+
+    int getActionId(int node) {
+        return chunk(node).actionId[node & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the state kept by the node, or null if it has to be rebuilt.
+     */
+    @SuppressWarnings("unchecked")
+    T getCachedState(int node) {
+        return (T) OBJECT_ELEMENT.getAcquire(chunk(node).state, node & CHUNK_MASK);
+    }
+
+    /**
+     * Keeps the given state in the node. The state must not be modified afterwards.
+     */
+    void cacheState(int node, T state) {
+        OBJECT_ELEMENT.setRelease(chunk(node).state, node & CHUNK_MASK, state);
+    }
+
+    /**
+     * Returns the state of the node, rebuilt on a copy of the nearest ancestor state if the position of the node is not kept.
+     * The returned state may be shared by the store and must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    T getState(int node) {
+        T cached = getCachedState(getPosition(node));
+        if (cached != null) return cached;
+        Deque<E> actions = new ArrayDeque<>();
+        int ancestor = node;
+        while (cached == null) {
+            actions.push(getAction(ancestor));
+            ancestor = getParent(ancestor);
+            cached = getCachedState(getPosition(ancestor));
+        }
+        T state = (T) cached.deepCopy();
+        for (E action : actions) {
+            if (state.supportsUndo()) {
+                state.doAction(action);
+            } else {
+                state = (T) state.applyAction(action);
+            }
+        }
+        return state;
+    }
+
+    boolean isTerminal(int node) {
+        return chunk(node).terminal[node & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the player to move in the state of the node.
+     */
+    int getPlayer(int node) {
+        return chunk(node).player[node & CHUNK_MASK];
+    }
+
+    long getStateKey(int node) {
+        return chunk(node).stateKey[node & CHUNK_MASK];
+    }
+
+    int getVisits(int node) {
+        return chunk(node).visits[node & CHUNK_MASK];
+    }
+
+    double getReward(int node) {
+        return chunk(node).reward[node & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the all-moves-as-first visits of the node: the simulations through its parent where the action of the
+     * node was played later by the same player.
+     */
+    int getAmafVisits(int node) {
+        return chunk(node).amafVisits[node & CHUNK_MASK];
+    }
+
+    double getAmafReward(int node) {
+        return chunk(node).amafReward[node & CHUNK_MASK];
+    }
+
+    int getVirtualLoss(int node) {
+        return chunk(node).virtualLoss[node & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the number of distinct actions available in the node, computed from its state on first use.
+     */
+    int getLegalActions(int node) {
+        int count = chunk(node).legalActions[node & CHUNK_MASK];
+        return count >= 0 ? count : getLegalActions(node, getState(node));
+    }
+
+    /**
+     * Returns the number of distinct actions available in the node, computed from the given state of the node on first use.
+     */
+    int getLegalActions(int node, T state) {
+        Chunk chunk = chunk(node);
+        int offset = node & CHUNK_MASK;
+        int count = chunk.legalActions[offset];
+        if (count < 0) {
+            List<E> actions = state.getDistinctActions(state.getCurrentPlayer());
+            count = actions.size();
+            chunk.legalActions[offset] = count;
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether the candidate actions of the position have been set.
+     */
+    boolean hasCandidates(int position) {
+        return OBJECT_ELEMENT.getAcquire(chunk(position).candidates, position & CHUNK_MASK) != null;
+    }
+
+    /**
+     * Sets the candidate actions of the position, in the order they are to be expanded, unless another thread has
+     * already set them.
+     *
+     * @param all whether the candidates are all the distinct actions of the position, and not a selection of them.
+     *            Threads computing the candidates of the same position must agree on it.
+     */
+    void setCandidatesIfAbsent(int position, Object[] actions, boolean all) {
+        Chunk chunk = chunk(position);
+        int offset = position & CHUNK_MASK;
+        chunk.allCandidates[offset] = all; // pubblicato dal compareAndSet
+        OBJECT_ELEMENT.compareAndSet(chunk.candidates, offset, null, actions);
+    }
+
+    /**
+     * Removes the next candidate action of the position.
+     *
+     * @return the action, or null if the candidates have not been set or are all taken.
+     */
+    @SuppressWarnings("unchecked")
+    E pollCandidate(int position) {
+        Chunk chunk = chunk(position);
+        int offset = position & CHUNK_MASK;
+        Object[] actions = (Object[]) OBJECT_ELEMENT.getAcquire(chunk.candidates, offset);
+        if (actions == null || (int) INT_ELEMENT.getVolatile(chunk.nextCandidate, offset) >= actions.length) {
+            return null;
+        }
+        int index = (int) INT_ELEMENT.getAndAdd(chunk.nextCandidate, offset, 1);
+        return index < actions.length ? (E) actions[index] : null;
+    }
+
+    /**
+     * Returns the candidate actions of the position not taken yet, or null if they have not been set.
+     */
+    @SuppressWarnings("unchecked")
+    List<E> getRemainingCandidates(int position) {
+        Chunk chunk = chunk(position);
+        int offset = position & CHUNK_MASK;
+        Object[] actions = (Object[]) OBJECT_ELEMENT.getAcquire(chunk.candidates, offset);
+        if (actions == null) return null;
+        List<E> remaining = new ArrayList<>();
+        for (int i = (int) INT_ELEMENT.getVolatile(chunk.nextCandidate, offset); i < actions.length; i++) {
+            remaining.add((E) actions[i]);
+        }
+        return remaining;
+    }
+
+    /**
+     * Returns whether all the candidate actions of the position have been taken.
+     */
+    boolean isFullyExpanded(int position) {
+        Chunk chunk = chunk(position);
+        int offset = position & CHUNK_MASK;
+        Object[] actions = (Object[]) OBJECT_ELEMENT.getAcquire(chunk.candidates, offset);
+        return actions != null && (int) INT_ELEMENT.getVolatile(chunk.nextCandidate, offset) >= actions.length;
+    }
+
+    /**
+     * Returns whether the children of the position cover all its distinct actions: the candidates are all of them and
+     * each one has been inserted as a child.
+     */
+    boolean hasAllChildren(int position) {
+        Chunk chunk = chunk(position);
+        int offset = position & CHUNK_MASK;
+        Object[] actions = (Object[]) OBJECT_ELEMENT.getAcquire(chunk.candidates, offset);
+        return actions != null && chunk.allCandidates[offset] && getChildCount(position) >= actions.length;
+    }
+
+    /**
+     * Returns the proven result of the position for the player who moved into it: {@link #PROVEN_WIN},
+     * {@link #PROVEN_DRAW}, {@link #PROVEN_LOSS}, or {@link #UNPROVEN}.
+     */
+    byte getProof(int position) {
+        return (byte) BYTE_ELEMENT.getAcquire(chunk(position).proof, position & CHUNK_MASK);
+    }
+
+    void setProof(int position, byte proof) {
+        BYTE_ELEMENT.setRelease(chunk(position).proof, position & CHUNK_MASK, proof);
+    }
+
+    /**
+     * Returns the child reached with the given action, or {@link #NONE}.
+     */
+    int findChild(int node, E action) {
+        return findChild(getFirstChild(node), NONE, action);
+    }
+
+    private int findChild(int from, int to, E action) {
+        int id = action.getId();
+        for (int child = from; child != to; child = getNextSibling(child)) {
+            if (id >= 0 ? getActionId(child) == id : action.equals(getAction(child))) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Adds a child reached with the given action, unless another thread has already added one.
+     * With transpositions the node must own its position, and the child shares the position of the state if known.
+     * If another thread adds the child after this one has allocated it, the allocated node stays in the arena
+     * detached, see {@link #isDetached}.
+     *
+     * @param state     the state of the child.
+     * @param keepState whether the child keeps the state, otherwise the state is only read.
+     * @return the child of the action, which is a new node only if it has been inserted.
+     */
+    int addChildIfAbsent(int node, E action, T state, boolean keepState) {
+        Chunk parentChunk = chunk(node);
+        int offset = node & CHUNK_MASK;
+        int child = NONE;
+        int checkedHead = NONE;
+        while (true) {
+            int head = getFirstChild(node);
+            // Solo i figli aggiunti dopo l'ultimo controllo possono essere nuovi
+            int existing = findChild(head, checkedHead, action);
+            if (existing != NONE) {
+                if (child != NONE) {
+                    detach(child);
+                }
+                return existing;
+            }
+            checkedHead = head;
+            if (child == NONE) {
+                child = allocate(node, action, state, keepState);
+                if (positions != null) {
+                    Integer position = positions.get(getStateKey(child));
+                    if (position != null && isSamePosition(position, state)) {
+                        Chunk chunk = chunk(child);
+                        chunk.position[child & CHUNK_MASK] = position;
+                        chunk.state[child & CHUNK_MASK] = null;
+                    }
+                }
+            }
+            chunk(child).nextSibling[child & CHUNK_MASK] = head;
+            if (INT_ELEMENT.compareAndSet(parentChunk.firstChild, offset, head, child)) {
+                INT_ELEMENT.getAndAdd(parentChunk.childCount, offset, 1);
+                if (positions != null && getPosition(child) == child) {
+                    // Se un altro thread registra la stessa posizione nel frattempo, questo nodo resta una copia
+                    positions.putIfAbsent(getStateKey(child), child);
+                }
+                return child;
+            }
+        }
+    }
+
+    private void detach(int node) {
+        Chunk chunk = chunk(node);
+        int offset = node & CHUNK_MASK;
+        chunk.parent[offset] = NONE;
+        chunk.state[offset] = null;
+    }
+
+    /**
+     * Returns whether the node lost the race to be inserted as a child, and so belongs to no tree.
+     */
+    boolean isDetached(int node) {
+        return node != ROOT && getParent(node) == NONE;
+    }
+
+    private boolean isSamePosition(int position, T state) {
+        T positionState = getCachedState(position);
+        return positionState == null || positionState.equals(state);
+    }
+
+    /**
+     * Atomically adds the results of several simulations to the statistics of the node.
+     */
+    void addStats(int node, double reward, int visits) {
+        Chunk chunk = chunk(node);
+        int offset = node & CHUNK_MASK;
+        INT_ELEMENT.getAndAdd(chunk.visits, offset, visits);
+        DOUBLE_ELEMENT.getAndAdd(chunk.reward, offset, reward);
+    }
+
+    /**
+     * Atomically adds the results of several simulations to the statistics of a position.
+     */
+    void addPositionStats(int position, double reward, int visits) {
+        Chunk chunk = chunk(position);
+        int offset = position & CHUNK_MASK;
+        INT_ELEMENT.getAndAdd(chunk.positionVisits, offset, visits);
+        DOUBLE_ELEMENT.getAndAdd(chunk.positionReward, offset, reward);
+    }
+
+    /**
+     * Atomically adds the results of several simulations to the all-moves-as-first statistics of the node.
+     */
+    void addAmafStats(int node, double reward, int visits) {
+        Chunk chunk = chunk(node);
+        int offset = node & CHUNK_MASK;
+        INT_ELEMENT.getAndAdd(chunk.amafVisits, offset, visits);
+        DOUBLE_ELEMENT.getAndAdd(chunk.amafReward, offset, reward);
+    }
+
+    void addVirtualLoss(int node, int delta) {
+        INT_ELEMENT.getAndAdd(chunk(node).virtualLoss, node & CHUNK_MASK, delta);
+    }
+
+    /**
+     * Copies the subtree of the given node into a new store, where it becomes the root.
+     * The rest of this store is left for the garbage collector, e.g. the siblings of the move actually played.
+     *
+     * @param node      the new root.
+     * @param rootState the state of the new root, kept even if the node did not keep it.
+     * @return the new store.
+     */
+    MCTSNodeStore<T, E> extractSubtree(int node, T rootState) {
+        MCTSNodeStore<T, E> subtree = new MCTSNodeStore<>(hasTranspositions());
+        Map<Integer, Integer> copiedPositions = new HashMap<>(); // posizione in questo store -> nel nuovo store
+        Deque<int[]> pending = new ArrayDeque<>(); // {nodo in questo store, padre nel nuovo store}
+        pending.add(new int[]{node, NONE});
+        while (!pending.isEmpty()) {
+            int[] entry = pending.poll();
+            int source = entry[0];
+            int copy = subtree.allocateCopy(entry[1], this, source);
+            Chunk from = chunk(source);
+            Chunk to = subtree.chunk(copy);
+            int fromOffset = source & CHUNK_MASK;
+            int toOffset = copy & CHUNK_MASK;
+            if (entry[1] == NONE) {
+                to.action[toOffset] = null;
+                to.actionId[toOffset] = -1;
+                to.state[toOffset] = rootState;
+            }
+            to.visits[toOffset] = from.visits[fromOffset];
+            to.reward[toOffset] = from.reward[fromOffset];
+            to.amafVisits[toOffset] = from.amafVisits[fromOffset];
+            to.amafReward[toOffset] = from.amafReward[fromOffset];
+            if (entry[1] != NONE) {
+                Chunk parent = subtree.chunk(entry[1]);
+                int parentOffset = entry[1] & CHUNK_MASK;
+                to.nextSibling[toOffset] = parent.firstChild[parentOffset];
+                parent.firstChild[parentOffset] = copy;
+                parent.childCount[parentOffset]++;
+            }
+            int position = getPosition(source);
+            Integer copiedPosition = copiedPositions.putIfAbsent(position, copy);
+            if (copiedPosition != null) {
+                // La posizione e' gia' stata copiata da un altro nodo
+                to.position[toOffset] = copiedPosition;
+                to.state[toOffset] = null;
+                continue;
+            }
+            // Il primo nodo copiato di una posizione la possiede, anche se prima non la possedeva
+            Chunk positionChunk = chunk(position);
+            int positionOffset = position & CHUNK_MASK;
+            to.legalActions[toOffset] = positionChunk.legalActions[positionOffset];
+            to.positionVisits[toOffset] = positionChunk.positionVisits[positionOffset];
+            to.positionReward[toOffset] = positionChunk.positionReward[positionOffset];
+            to.candidates[toOffset] = positionChunk.candidates[positionOffset];
+            to.nextCandidate[toOffset] = positionChunk.nextCandidate[positionOffset];
+            to.allCandidates[toOffset] = positionChunk.allCandidates[positionOffset];
+            to.proof[toOffset] = positionChunk.proof[positionOffset];
+            if (to.state[toOffset] == null) {
+                to.state[toOffset] = positionChunk.state[positionOffset];
+            }
+            if (subtree.positions != null) {
+                subtree.positions.put(to.stateKey[toOffset], copy);
+            }
+            for (int child = getFirstChild(position); child != NONE; child = getNextSibling(child)) {
+                pending.add(new int[]{child, copy});
+            }
+        }
+        return subtree;
+    }
+
+    private int allocateCopy(int parent, MCTSNodeStore<T, E> store, int source) {
+        int node = allocate(parent, store.getAction(source));
+        Chunk from = store.chunk(source);
+        Chunk to = chunk(node);
+        int fromOffset = source & CHUNK_MASK;
+        int toOffset = node & CHUNK_MASK;
+        to.state[toOffset] = from.state[fromOffset];
+        to.terminal[toOffset] = from.terminal[fromOffset];
+        to.player[toOffset] = from.player[fromOffset];
+        to.stateKey[toOffset] = from.stateKey[fromOffset];
+        return node;
+    }
+}
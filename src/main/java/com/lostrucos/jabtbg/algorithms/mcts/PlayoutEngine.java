@@ -0,0 +1,84 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import com.lostrucos.jabtbg.core.Action;
+import com.lostrucos.jabtbg.core.GameState;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays a game to the end during the simulation step of {@link MCTSAlgorithm}.
+ * Games can provide an engine faster than playing the actions one by one on the game state,
+ * or a rollout policy stronger than choosing them uniformly at random.
+ * Engines are shared by the threads of a parallel search, so they must be thread-safe.
+ */
+@FunctionalInterface
+public interface PlayoutEngine<T extends GameState<E>, E extends Action> {
+
+    /**
+     * Plays the game from the given state until it ends.
+     *
+     * @param state  a copy of the state of a node, owned by the caller, which the engine may modify.
+     * @param random the random generator of the calling thread.
+     * @return the terminal state reached, possibly the given state itself.
+     */
+    T playout(T state, RandomGenerator random);
+
+    /**
+     * Plays the game from the given state until it ends, reporting every move played, e.g. for the all-moves-as-first
+     * statistics of {@link MCTSAlgorithm}. Engines which cannot report their moves play without reporting them.
+     *
+     * @param state    a copy of the state of a node, owned by the caller, which the engine may modify.
+     * @param random   the random generator of the calling thread.
+     * @param listener receives the moves, in the order they are played.
+     * @return the terminal state reached, possibly the given state itself.
+     */
+    default T playout(T state, RandomGenerator random, MoveListener listener) {
+        return playout(state, random);
+    }
+
+    /**
+     * Receives the moves of a playout.
+     */
+    @FunctionalInterface
+    interface MoveListener {
+        /**
+         * Called when a player plays an action.
+         *
+         * @param player   the index of the player.
+         * @param actionId the id of the action, see {@link Action#getId}.
+         */
+        void onMove(int player, int actionId);
+    }
+
+    /**
+     * Returns the default engine, which plays actions chosen uniformly at random with {@link GameState#getRandomAction},
+     * in place when the state supports undo.
+     */
+    static <T extends GameState<E>, E extends Action> PlayoutEngine<T, E> random() {
+        return new PlayoutEngine<>() {
+            @Override
+            public T playout(T state, RandomGenerator random) {
+                return playout(state, random, null);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T playout(T state, RandomGenerator random, MoveListener listener) {
+                boolean inPlace = state.supportsUndo();
+                while (!state.isTerminalNode()) {
+                    int player = state.getCurrentPlayer();
+                    E randomAction = state.getRandomAction(player, random);
+                    if (listener != null) {
+                        listener.onMove(player, randomAction.getId());
+                    }
+                    if (inPlace) {
+                        state.doAction(randomAction);
+                    } else {
+                        state = (T) state.applyAction(randomAction);
+                    }
+                }
+                return state;
+            }
+        };
+    }
+}
@@ -17,4 +17,14 @@ public interface Action {
      * @return the index of the player.
      */
     int getPlayer();
+
+    /**
+     * Returns a dense, non-negative identifier of the action, unique among all the actions of the game.
+     * Games that do not number their actions return -1.
+     *
+     * @return the id of the action, or -1 if the game does not provide one.
+     */
+    default int getId() {
+        return -1;
+    }
 }
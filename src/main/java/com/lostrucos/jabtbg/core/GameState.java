@@ -1,6 +1,8 @@
 package com.lostrucos.jabtbg.core;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents the state of the game and has all the game informations at a particular point in the game.
@@ -30,13 +32,43 @@ public interface GameState<E extends Action>{
     boolean isTie();
 
     /**
-     * Modifies the current game state by applying an action
+     * Returns the game state reached by applying an action. The current game state is not modified.
      *
      * @param action the action to be applied to the current game state
      * @return the new game state after applying the action
      */
     GameState<E> applyAction(E action);
 
+    /**
+     * Tells if the game state can be modified in place with {@link #doAction} and {@link #undoAction}.
+     *
+     * @return true if in-place actions are supported
+     *         false otherwise
+     */
+    default boolean supportsUndo() {
+        return false;
+    }
+
+    /**
+     * Modifies the current game state in place by applying an action.
+     *
+     * @param action the action to be applied to the current game state
+     * @throws UnsupportedOperationException if the game state does not support in-place actions
+     */
+    default void doAction(E action) {
+        throw new UnsupportedOperationException("In-place actions are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Reverts an action previously applied with {@link #doAction}. Actions must be undone in reverse order.
+     *
+     * @param action the last action applied to the current game state
+     * @throws UnsupportedOperationException if the game state does not support in-place actions
+     */
+    default void undoAction(E action) {
+        throw new UnsupportedOperationException("In-place actions are not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * Creates a deep copy of the current game state
      *
@@ -44,6 +76,16 @@ public interface GameState<E extends Action>{
      */
     GameState<E> deepCopy();
 
+    /**
+     * Returns a 64-bit key of the position. Equal states must have equal keys, and different
+     * states should have different keys with high probability.
+     *
+     * @return the key of the game state
+     */
+    default long stateKey() {
+        return hashCode();
+    }
+
     /**
      * Returns a representation of the state of the game.
      *
@@ -52,4 +94,47 @@ public interface GameState<E extends Action>{
     String toString();
 
     List<E> getAvailableActions(int playerIndex);
+
+    /**
+     * Returns the number of available actions, without building the list of actions.
+     *
+     * @param playerIndex the index of the player to move
+     * @return the number of actions returned by {@link #getAvailableActions}
+     */
+    default int countAvailableActions(int playerIndex) {
+        return getAvailableActions(playerIndex).size();
+    }
+
+    /**
+     * Returns an available action chosen uniformly at random.
+     *
+     * @param playerIndex the index of the player to move
+     * @param random      the random generator to draw from
+     * @return a random available action, or null if there are none
+     */
+    default E getRandomAction(int playerIndex, RandomGenerator random) {
+        List<E> actions = getAvailableActions(playerIndex);
+        return actions.isEmpty() ? null : actions.get(random.nextInt(actions.size()));
+    }
+
+    /**
+     * Passes every available action to the visitor, in the order of {@link #getAvailableActions}.
+     *
+     * @param playerIndex the index of the player to move
+     * @param visitor     the consumer of the actions
+     */
+    default void forEachAvailableAction(int playerIndex, Consumer<? super E> visitor) {
+        getAvailableActions(playerIndex).forEach(visitor);
+    }
+
+    /**
+     * Returns a subset of the available actions leading to pairwise distinct states, covering every state reachable
+     * with {@link #getAvailableActions}. Games that cannot detect duplicate successors return all the available actions.
+     *
+     * @param playerIndex the index of the player to move
+     * @return the actions with distinct resulting states
+     */
+    default List<E> getDistinctActions(int playerIndex) {
+        return getAvailableActions(playerIndex);
+    }
 }
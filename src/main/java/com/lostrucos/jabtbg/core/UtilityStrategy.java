@@ -5,4 +5,44 @@ import java.util.List;
 public interface UtilityStrategy<T extends GameState<E>, E extends Action> {
     double calculateUtility(T state, int playerIndex);
     List<E> suggestStrategicMoves(T state, int currentPlayer);
+
+    /**
+     * Computes the utility of several states for the same player.
+     * Strategies evaluating many states at once should override it with a batched implementation.
+     *
+     * @param states      the states to evaluate
+     * @param playerIndex the player whose utility is computed
+     * @param utilities   receives the utility of {@code states.get(i)} at index {@code i}
+     */
+    default void calculateUtilities(List<? extends T> states, int playerIndex, double[] utilities) {
+        for (int i = 0; i < states.size(); i++) {
+            utilities[i] = calculateUtility(states.get(i), playerIndex);
+        }
+    }
+
+    /**
+     * Computes the utility for the same player of the states reached by applying each action to the given state,
+     * e.g. to score every child of a node at once. The given state is not modified.
+     *
+     * @param state       the parent state
+     * @param actions     the actions leading to the states to evaluate
+     * @param playerIndex the player whose utility is computed
+     * @param utilities   receives the utility of the state reached with {@code actions.get(i)} at index {@code i}
+     */
+    @SuppressWarnings("unchecked")
+    default void calculateChildUtilities(T state, List<? extends E> actions, int playerIndex, double[] utilities) {
+        if (state.supportsUndo()) {
+            T scratch = (T) state.deepCopy();
+            for (int i = 0; i < actions.size(); i++) {
+                E action = actions.get(i);
+                scratch.doAction(action);
+                utilities[i] = calculateUtility(scratch, playerIndex);
+                scratch.undoAction(action);
+            }
+        } else {
+            for (int i = 0; i < actions.size(); i++) {
+                utilities[i] = calculateUtility((T) state.applyAction(actions.get(i)), playerIndex);
+            }
+        }
+    }
 }
@@ -36,6 +36,9 @@ public class PentagoController implements Game<PentagoGameState, PentagoAction>
         currentState = new PentagoGameState(initialBoard, initialPlayer);
         previousState = null;
 
+        // I thread di ricerca degli algoritmi della partita precedente non servono piu'
+        resetAgent(player1);
+        resetAgent(player2);
         player1 = createAgent(player1Type, 0, difficulty1);
         player2 = createAgent(player2Type, 1, difficulty2);
 
@@ -50,6 +53,12 @@ public class PentagoController implements Game<PentagoGameState, PentagoAction>
         }
     }
 
+    private void resetAgent(Player<PentagoGameState, PentagoAction> player) {
+        if (player instanceof AIPlayer aiPlayer) {
+            aiPlayer.getAlgorithm().reset();
+        }
+    }
+
     private Player<PentagoGameState, PentagoAction> createAgent(String type, int playerIndex, String difficulty) {
         if ("Umano".equals(type)) {
             return new HumanPlayer(playerIndex);
@@ -64,7 +73,11 @@ public class PentagoController implements Game<PentagoGameState, PentagoAction>
         int iterations = getIterationsForDifficulty(difficulty);
         switch (type) {
             case "Monte Carlo Tree Search":
-                return new MCTSAlgorithm<>(iterations, Math.sqrt(2));
+                return MCTSAlgorithm.<PentagoAction, PentagoGameState>builder()
+                        .iterations(iterations)
+                        .explorationConstant(Math.sqrt(2))
+                        .playoutEngine(new PentagoPlayoutEngine(PentagoPlayoutEngine.RolloutPolicy.UNIFORM))
+                        .build();
             /*case "Minimax":
                 return new MinimaxAlgorithm<>(iterations);
             case "Minimax con Alfa-Beta pruning":
@@ -116,7 +129,7 @@ public class PentagoController implements Game<PentagoGameState, PentagoAction>
     public void handleRotation(int quadrant, boolean clockwise) {
         Player<PentagoGameState, PentagoAction> currentPlayer = currentState.getCurrentPlayer() == 0 ? player1 : player2;
         if (currentPlayer instanceof HumanPlayer) {
-            PentagoAction action = new PentagoAction(gameView.getSelectedRow(), gameView.getSelectedColumn(), quadrant, clockwise, currentState.getCurrentPlayer());
+            PentagoAction action = PentagoAction.of(gameView.getSelectedRow(), gameView.getSelectedColumn(), quadrant, clockwise, currentState.getCurrentPlayer());
             ((HumanPlayer) currentPlayer).setAction(action);
             applyAction(action);
             if (!currentState.isTerminalNode()) {
@@ -20,8 +20,7 @@ public class AIPlayer implements Player<PentagoGameState, PentagoAction> {
     @Override
     public PentagoAction getAction(PentagoGameState state) {
         try {
-            System.out.println("AIPlayer: Inizializzazione dell'algoritmo..."); // Debug
-            algorithm.initialize(state);
+            // L'albero non viene reinizializzato: l'algoritmo riusa la ricerca della mossa precedente
             System.out.println("AIPlayer: Scelta dell'azione..."); // Debug
             PentagoAction chosenAction = algorithm.chooseAction(state);
             System.out.println("AIPlayer: Azione scelta: " + chosenAction); // Debug
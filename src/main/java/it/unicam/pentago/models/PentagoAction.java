@@ -2,12 +2,31 @@ package it.unicam.pentago.models;
 
 import com.lostrucos.jabtbg.core.Action;
 
+/**
+ * A Pentago move: place a piece on a cell and rotate a quadrant.
+ * Every action has a dense id in {@code [0, NUM_ACTIONS)} built as
+ * {@code ((player * NUM_CELLS + cell) * 4 + quadrant) * 2 + direction}, where direction is 0 for
+ * clockwise and 1 for counterclockwise. Instances are immutable and shared through {@link #of}.
+ */
 public class PentagoAction implements Action {
+    public static final int NUM_ACTIONS = 2 * PentagoBoard.NUM_CELLS * 4 * 2;
+
+    private static final PentagoAction[] ACTIONS = new PentagoAction[NUM_ACTIONS];
+
+    static {
+        for (int id = 0; id < NUM_ACTIONS; id++) {
+            int cell = cellOf(id);
+            ACTIONS[id] = new PentagoAction(cell / PentagoBoard.BOARD_SIZE, cell % PentagoBoard.BOARD_SIZE,
+                    quadrantOf(id), isClockwise(id), playerOf(id));
+        }
+    }
+
     private final int row;
     private final int col;
     private final int quadrant;
     private final boolean clockwise;
     private final int player;
+    private final int id;
 
     public PentagoAction(int row, int col, int quadrant, boolean clockwise, int player) {
         this.row = row;
@@ -15,6 +34,41 @@ public class PentagoAction implements Action {
         this.quadrant = quadrant;
         this.clockwise = clockwise;
         this.player = player;
+        this.id = encode(PentagoBoard.cellIndex(row, col), quadrant, clockwise, player);
+    }
+
+    /**
+     * Returns the shared instance of the given action.
+     */
+    public static PentagoAction of(int row, int col, int quadrant, boolean clockwise, int player) {
+        return ACTIONS[encode(PentagoBoard.cellIndex(row, col), quadrant, clockwise, player)];
+    }
+
+    /**
+     * Returns the shared instance of the action with the given id.
+     */
+    public static PentagoAction fromId(int id) {
+        return ACTIONS[id];
+    }
+
+    public static int encode(int cell, int quadrant, boolean clockwise, int player) {
+        return ((player * PentagoBoard.NUM_CELLS + cell) * 4 + quadrant) * 2 + (clockwise ? 0 : 1);
+    }
+
+    public static int cellOf(int id) {
+        return (id >> 3) % PentagoBoard.NUM_CELLS;
+    }
+
+    public static int quadrantOf(int id) {
+        return (id >> 1) & 3;
+    }
+
+    public static boolean isClockwise(int id) {
+        return (id & 1) == 0;
+    }
+
+    public static int playerOf(int id) {
+        return (id >> 3) / PentagoBoard.NUM_CELLS;
     }
 
     public int getRow() { return row; }
@@ -27,6 +81,11 @@ public class PentagoAction implements Action {
         return player;
     }
 
+    @Override
+    public int getId() {
+        return id;
+    }
+
     @Override
     public String toString() {
         return String.format("Player %d: Place at (%d,%d), rotate quadrant %d %s",
@@ -38,10 +97,11 @@ public class PentagoAction implements Action {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PentagoAction that = (PentagoAction) o;
-        return row == that.row &&
-                col == that.col &&
-                quadrant == that.quadrant &&
-                clockwise == that.clockwise &&
-                player == that.player;
+        return id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
     }
-}
\ No newline at end of file
+}
@@ -1,167 +1,326 @@
 package it.unicam.pentago.models;
 
+/**
+ * Pentago board stored as a pair of bitboards, one 36-bit occupancy mask per player.
+ * Cell (row, col) is mapped to bit {@code row * BOARD_SIZE + col}.
+ */
 public class PentagoBoard {
     public static final int BOARD_SIZE = 6;
     public static final int QUADRANT_SIZE = 3;
-    private int[][] board;
+    public static final int NUM_CELLS = BOARD_SIZE * BOARD_SIZE;
+    public static final long FULL_MASK = (1L << NUM_CELLS) - 1;
+
+    private static final int QUADRANT_PATTERNS = 1 << (QUADRANT_SIZE * QUADRANT_SIZE);
+    private static final int[] QUADRANT_OFFSET = new int[4];
+    private static final long[] QUADRANT_MASK = new long[4];
+    // ROTATED_QUADRANT[quadrant * 2 + (clockwise ? 0 : 1)][local pattern] -> rotated pattern placed on the board
+    private static final long[][] ROTATED_QUADRANT = new long[8][QUADRANT_PATTERNS];
+    // ROTATED_PATTERN[clockwise ? 0 : 1][local pattern] -> rotated local pattern
+    static final int[][] ROTATED_PATTERN = new int[2][QUADRANT_PATTERNS];
+    // Rotational symmetry of a local pattern: SYMMETRY_NONE, SYMMETRY_180 or SYMMETRY_90
+    static final byte[] PATTERN_SYMMETRY = new byte[QUADRANT_PATTERNS];
+    static final byte SYMMETRY_NONE = 0;
+    static final byte SYMMETRY_180 = 1;
+    static final byte SYMMETRY_90 = 2;
+    // The 32 five-cell lines that win the game: 12 horizontal, 12 vertical, 4 + 4 diagonal
+    static final long[] WIN_LINES = new long[32];
+
+    static {
+        for (int pattern = 0; pattern < QUADRANT_PATTERNS; pattern++) {
+            ROTATED_PATTERN[0][pattern] = rotatePattern(pattern, true);
+            ROTATED_PATTERN[1][pattern] = rotatePattern(pattern, false);
+            int halfTurn = rotatePattern(ROTATED_PATTERN[0][pattern], true);
+            PATTERN_SYMMETRY[pattern] = ROTATED_PATTERN[0][pattern] == pattern ? SYMMETRY_90
+                    : halfTurn == pattern ? SYMMETRY_180 : SYMMETRY_NONE;
+        }
+        for (int q = 0; q < 4; q++) {
+            QUADRANT_OFFSET[q] = (q / 2) * QUADRANT_SIZE * BOARD_SIZE + (q % 2) * QUADRANT_SIZE;
+            QUADRANT_MASK[q] = scatterQuadrant(q, QUADRANT_PATTERNS - 1);
+            for (int pattern = 0; pattern < QUADRANT_PATTERNS; pattern++) {
+                ROTATED_QUADRANT[q * 2][pattern] = scatterQuadrant(q, ROTATED_PATTERN[0][pattern]);
+                ROTATED_QUADRANT[q * 2 + 1][pattern] = scatterQuadrant(q, ROTATED_PATTERN[1][pattern]);
+            }
+        }
+
+        int line = 0;
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int[] dir : directions) {
+            for (int row = 0; row < BOARD_SIZE; row++) {
+                for (int col = 0; col < BOARD_SIZE; col++) {
+                    int endRow = row + 4 * dir[0];
+                    int endCol = col + 4 * dir[1];
+                    if (endRow < 0 || endRow >= BOARD_SIZE || endCol < 0 || endCol >= BOARD_SIZE) {
+                        continue;
+                    }
+                    long mask = 0L;
+                    for (int i = 0; i < 5; i++) {
+                        mask |= 1L << cellIndex(row + i * dir[0], col + i * dir[1]);
+                    }
+                    WIN_LINES[line++] = mask;
+                }
+            }
+        }
+    }
+
+    private long player1Mask; // pieces of player 1 (cell value 1)
+    private long player2Mask; // pieces of player 2 (cell value 2)
+    private long zobristKey;  // Zobrist key of the pieces, updated incrementally
+    private final int[] lineEntries = PentagoPatterns.emptyLineEntries(); // pattern of every line, see PentagoPatterns
+    private long lineFeatures; // packed feature totals over all lines, see PentagoPatterns
 
     public PentagoBoard() {
-        this.board = new int[BOARD_SIZE][BOARD_SIZE]; // 0: empty, 1: player 1, 2: player 2
+        // 0: empty, 1: player 1, 2: player 2
     }
 
+    /**
+     * Returns a snapshot of the board as a matrix of cell values. Changes to the returned matrix
+     * are not reflected on the board.
+     *
+     * @return a new {@code BOARD_SIZE x BOARD_SIZE} matrix of cell values
+     */
     public int[][] getBoard() {
+        int[][] board = new int[BOARD_SIZE][BOARD_SIZE];
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                board[row][col] = getCell(row, col);
+            }
+        }
         return board;
     }
 
     // Metodi aggiuntivi per manipolare la board
     public void setCell(int row, int col, int player) {
-        board[row][col] = player;
+        int index = cellIndex(row, col);
+        long bit = 1L << index;
+        int oldValue = getCell(row, col);
+        int newValue = player == 1 || player == 2 ? player : 0;
+        if (oldValue == newValue) return;
+        if (oldValue != 0) {
+            zobristKey ^= PentagoZobrist.CELL[oldValue - 1][index];
+        }
+        if (newValue != 0) {
+            zobristKey ^= PentagoZobrist.CELL[newValue - 1][index];
+        }
+        lineFeatures = PentagoPatterns.updateCell(lineEntries, lineFeatures, index, oldValue, newValue);
+        player1Mask &= ~bit;
+        player2Mask &= ~bit;
+        if (player == 1) {
+            player1Mask |= bit;
+        } else if (player == 2) {
+            player2Mask |= bit;
+        }
     }
 
     public int getCell(int row, int col) {
-        return board[row][col];
+        int index = cellIndex(row, col);
+        return (int) ((player1Mask >>> index) & 1L) | (int) ((player2Mask >>> index) & 1L) << 1;
     }
 
     public PentagoBoard deepCopy() {
         PentagoBoard copy = new PentagoBoard();
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            System.arraycopy(this.board[i], 0, copy.board[i], 0, BOARD_SIZE);
-        }
+        copy.copyFrom(this);
         return copy;
     }
 
+    /**
+     * Overwrites this board with the content of another one, without allocating.
+     *
+     * @param other the board to copy
+     */
+    public void copyFrom(PentagoBoard other) {
+        this.player1Mask = other.player1Mask;
+        this.player2Mask = other.player2Mask;
+        this.zobristKey = other.zobristKey;
+        System.arraycopy(other.lineEntries, 0, this.lineEntries, 0, lineEntries.length);
+        this.lineFeatures = other.lineFeatures;
+    }
+
     public void rotateQuadrant(int quadrant, boolean clockwise) {
-        int startRow = (quadrant / 2) * QUADRANT_SIZE;
-        int startCol = (quadrant % 2) * QUADRANT_SIZE;
-        int[][] temp = new int[QUADRANT_SIZE][QUADRANT_SIZE];
+        long[] table = ROTATED_QUADRANT[quadrant * 2 + (clockwise ? 0 : 1)];
+        long keep = ~QUADRANT_MASK[quadrant];
+        int pattern1 = gatherQuadrant(player1Mask, quadrant);
+        int pattern2 = gatherQuadrant(player2Mask, quadrant);
+        player1Mask = (player1Mask & keep) | table[pattern1];
+        player2Mask = (player2Mask & keep) | table[pattern2];
 
-        for (int i = 0; i < QUADRANT_SIZE; i++) {
-            for (int j = 0; j < QUADRANT_SIZE; j++) {
-                if (clockwise) {
-                    temp[j][QUADRANT_SIZE-1-i] = board[startRow+i][startCol+j];
-                } else {
-                    temp[QUADRANT_SIZE-1-j][i] = board[startRow+i][startCol+j];
-                }
-            }
-        }
+        long[] keys1 = PentagoZobrist.QUADRANT[0][quadrant];
+        long[] keys2 = PentagoZobrist.QUADRANT[1][quadrant];
+        zobristKey ^= keys1[pattern1] ^ keys1[gatherQuadrant(player1Mask, quadrant)]
+                ^ keys2[pattern2] ^ keys2[gatherQuadrant(player2Mask, quadrant)];
 
-        for (int i = 0; i < QUADRANT_SIZE; i++) {
-            for (int j = 0; j < QUADRANT_SIZE; j++) {
-                board[startRow+i][startCol+j] = temp[i][j];
-            }
-        }
+        lineFeatures = PentagoPatterns.updateQuadrant(lineEntries, lineFeatures, quadrant, player1Mask, player2Mask);
     }
 
-    public int countNInARow(int playerIndex, int n) {
-        int count = 0;
-        int playerValue = playerIndex + 1;
-
-        // Controlla orizzontalmente
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            count += countInDirection(row, 0, 0, 1, playerValue, n);
-        }
+    /**
+     * Returns the given bitboard with a quadrant rotated, without touching any board.
+     */
+    static long rotate(long mask, int quadrant, boolean clockwise) {
+        long[] table = ROTATED_QUADRANT[quadrant * 2 + (clockwise ? 0 : 1)];
+        return (mask & ~QUADRANT_MASK[quadrant]) | table[gatherQuadrant(mask, quadrant)];
+    }
 
-        // Controlla verticalmente
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            count += countInDirection(0, col, 1, 0, playerValue, n);
+    /**
+     * Replaces all the pieces on the board, recomputing the Zobrist key and the line patterns.
+     *
+     * @param player1Pieces the bitboard of the pieces of player 1 (cell value 1)
+     * @param player2Pieces the bitboard of the pieces of player 2 (cell value 2)
+     */
+    public void setPieces(long player1Pieces, long player2Pieces) {
+        player1Mask = player1Pieces;
+        player2Mask = player2Pieces;
+        zobristKey = PentagoZobrist.keyOf(player1Pieces, 0) ^ PentagoZobrist.keyOf(player2Pieces, 1);
+        // Ogni linea attraversa almeno un quadrante
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            lineFeatures = PentagoPatterns.updateQuadrant(lineEntries, lineFeatures, quadrant, player1Mask, player2Mask);
         }
+    }
 
-        // Controlla diagonali (da sinistra a destra)
-        for (int i = 0; i <= BOARD_SIZE - n; i++) {
-            count += countInDirection(i, 0, 1, 1, playerValue, n);
-            if (i > 0) count += countInDirection(0, i, 1, 1, playerValue, n);
-        }
+    /**
+     * Returns the Zobrist key of the pieces on the board. The key is maintained incrementally by
+     * {@link #setCell} and {@link #rotateQuadrant}.
+     *
+     * @return the 64-bit key of the position, without the player to move
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
 
-        // Controlla diagonali (da destra a sinistra)
-        for (int i = 0; i <= BOARD_SIZE - n; i++) {
-            count += countInDirection(i, BOARD_SIZE - 1, 1, -1, playerValue, n);
-            if (i > 0) count += countInDirection(0, BOARD_SIZE - 1 - i, 1, -1, playerValue, n);
-        }
+    /**
+     * Returns the occupancy mask of the given player.
+     *
+     * @param playerIndex the index of the player (0 or 1)
+     * @return the bitboard of the cells occupied by the player
+     */
+    public long getPlayerMask(int playerIndex) {
+        return playerIndex == 0 ? player1Mask : player2Mask;
+    }
 
-        return count;
+    /**
+     * Returns the pattern of every line, maintained incrementally, see {@link PentagoPatterns}. Must not be modified.
+     */
+    int[] getLineEntries() {
+        return lineEntries;
     }
 
-    private int countInDirection(int startRow, int startCol, int dRow, int dCol, int playerValue, int n) {
-        int count = 0;
-        int sequence = 0;
+    /**
+     * Returns the packed feature totals over all lines, see {@link PentagoPatterns}.
+     */
+    long getLineFeatures() {
+        return lineFeatures;
+    }
 
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            int row = startRow + i * dRow;
-            int col = startCol + i * dCol;
+    public long getOccupiedMask() {
+        return player1Mask | player2Mask;
+    }
 
-            if (row < 0 || row >= BOARD_SIZE || col < 0 || col >= BOARD_SIZE) {
-                break;
-            }
+    public long getEmptyMask() {
+        return ~(player1Mask | player2Mask) & FULL_MASK;
+    }
 
-            if (board[row][col] == playerValue) {
-                sequence++;
-                if (sequence == n) {
-                    count++;
-                    sequence--;  // Per contare sovrapposizioni
-                }
-            } else {
-                sequence = 0;
-            }
-        }
+    public boolean isFull() {
+        return (player1Mask | player2Mask) == FULL_MASK;
+    }
 
-        return count;
+    /**
+     * Returns the rotational symmetry of a quadrant, considering the pieces of both players:
+     * with {@code SYMMETRY_90} any rotation leaves the quadrant unchanged, with {@code SYMMETRY_180}
+     * the clockwise and counterclockwise rotations give the same result.
+     */
+    byte getQuadrantSymmetry(int quadrant) {
+        return (byte) Math.min(PATTERN_SYMMETRY[gatherQuadrant(player1Mask, quadrant)],
+                PATTERN_SYMMETRY[gatherQuadrant(player2Mask, quadrant)]);
     }
 
-    public int countBlockingMoves(int playerIndex, int opponentIndex) {
-        int count = 0;
-        int playerValue = playerIndex + 1;
-        int opponentValue = opponentIndex + 1;
+    /**
+     * Checks whether the given player has five pieces in a row.
+     *
+     * @param playerIndex the index of the player (0 or 1)
+     * @return true if at least one of the 32 winning lines is fully occupied by the player
+     */
+    public boolean hasFiveInARow(int playerIndex) {
+        return containsWinLine(getPlayerMask(playerIndex));
+    }
 
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                if (board[row][col] == 0) {  // Cella vuota
-                    // Controlla se questa mossa blocca una potenziale vittoria dell'avversario
-                    if (isBlockingMove(row, col, playerValue, opponentValue)) {
-                        count++;
-                    }
-                }
+    /**
+     * Returns the empty cells that would give five in a row to a player owning {@code own}.
+     * If {@code own} already contains a winning line, every empty cell is returned.
+     *
+     * @param own   the pieces of the player
+     * @param empty the empty cells
+     * @return the mask of the winning placements
+     */
+    public static long winningPlacements(long own, long empty) {
+        long placements = 0L;
+        for (long line : WIN_LINES) {
+            long missing = line & ~own;
+            if (missing == 0) {
+                return empty;
+            }
+            if ((missing & (missing - 1)) == 0) {
+                placements |= missing;
             }
         }
-
-        return count;
+        return placements & empty;
     }
 
-    private boolean isBlockingMove(int row, int col, int playerValue, int opponentValue) {
-        // Direzioni: orizzontale, verticale, diagonale dx, diagonale sx
-        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
-
-        for (int[] dir : directions) {
-            if (wouldBlock(row, col, dir[0], dir[1], playerValue, opponentValue) ||
-                    wouldBlock(row, col, -dir[0], -dir[1], playerValue, opponentValue)) {
+    static boolean containsWinLine(long mask) {
+        if (Long.bitCount(mask) < 5) return false;
+        for (long line : WIN_LINES) {
+            if ((mask & line) == line) {
                 return true;
             }
         }
-
         return false;
     }
 
-    private boolean wouldBlock(int row, int col, int dRow, int dCol, int playerValue, int opponentValue) {
-        int opponentCount = 0;
-        int emptyCount = 0;
+    public static int cellIndex(int row, int col) {
+        return row * BOARD_SIZE + col;
+    }
+
+    public static long getQuadrantMask(int quadrant) {
+        return QUADRANT_MASK[quadrant];
+    }
 
-        for (int i = 1; i <= 4; i++) {
-            int newRow = row + i * dRow;
-            int newCol = col + i * dCol;
+    /**
+     * Extracts the 9 cells of a quadrant from a bitboard into a local pattern, where the cell
+     * (i, j) of the quadrant is mapped to bit {@code i * QUADRANT_SIZE + j}.
+     */
+    static int gatherQuadrant(long mask, int quadrant) {
+        int offset = QUADRANT_OFFSET[quadrant];
+        return (int) ((mask >>> offset) & 7L)
+                | (int) ((mask >>> (offset + BOARD_SIZE)) & 7L) << 3
+                | (int) ((mask >>> (offset + 2 * BOARD_SIZE)) & 7L) << 6;
+    }
 
-            if (newRow < 0 || newRow >= BOARD_SIZE || newCol < 0 || newCol >= BOARD_SIZE) {
-                break;
-            }
+    static long scatterQuadrant(int quadrant, int pattern) {
+        int offset = QUADRANT_OFFSET[quadrant];
+        return (pattern & 7L) << offset
+                | ((pattern >>> 3) & 7L) << (offset + BOARD_SIZE)
+                | ((pattern >>> 6) & 7L) << (offset + 2 * BOARD_SIZE);
+    }
 
-            if (board[newRow][newCol] == opponentValue) {
-                opponentCount++;
-            } else if (board[newRow][newCol] == 0) {
-                emptyCount++;
-            } else {
-                break;
+    static int rotatePattern(int pattern, boolean clockwise) {
+        int rotated = 0;
+        for (int i = 0; i < QUADRANT_SIZE; i++) {
+            for (int j = 0; j < QUADRANT_SIZE; j++) {
+                if ((pattern & (1 << (i * QUADRANT_SIZE + j))) != 0) {
+                    if (clockwise) {
+                        rotated |= 1 << (j * QUADRANT_SIZE + (QUADRANT_SIZE - 1 - i));
+                    } else {
+                        rotated |= 1 << ((QUADRANT_SIZE - 1 - j) * QUADRANT_SIZE + i);
+                    }
+                }
             }
         }
+        return rotated;
+    }
 
-        // Considera una mossa di blocco se previene 4 in fila dell'avversario
-        return opponentCount == 3 && emptyCount == 1;
+    public int countNInARow(int playerIndex, int n) {
+        return PentagoPatterns.countNInARow(this, playerIndex, n);
+    }
+
+    public int countBlockingMoves(int playerIndex, int opponentIndex) {
+        // Celle vuote che bloccano 3 pezzi dell'avversario con una sola casella libera
+        return PentagoPatterns.countPotentialBlocks(this, opponentIndex);
     }
 }
@@ -3,8 +3,12 @@ package it.unicam.pentago.models;
 import com.lostrucos.jabtbg.core.*;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
 
 public class PentagoGameState implements GameState<PentagoAction> {
+    public static final int BOTH_PLAYERS_WIN = 3;
+
     private PentagoBoard board;
     private int currentPlayer;
     private UtilityStrategy<PentagoGameState, PentagoAction> utilityStrategy;
@@ -25,19 +29,63 @@ public class PentagoGameState implements GameState<PentagoAction> {
 
     @Override
     public boolean isTerminalNode() {
-        return checkForWinner() != -1 || isBoardFull();
+        return getWinnerMask() != 0 || board.isFull();
     }
 
     @Override
     public boolean isTie() {
-        return isTerminalNode() && checkForWinner() == -1;
+        int winners = getWinnerMask();
+        return winners == BOTH_PLAYERS_WIN || (winners == 0 && board.isFull());
     }
 
     @Override
     public PentagoGameState applyAction(PentagoAction action) {
-        board.setCell(action.getRow(), action.getCol(), currentPlayer + 1);
+        PentagoGameState nextState = deepCopy();
+        nextState.doAction(action);
+        return nextState;
+    }
+
+    /**
+     * Applies the action with the given id, see {@link PentagoAction} for the encoding.
+     *
+     * @param actionId the id of the action
+     * @return the new game state after applying the action
+     */
+    public PentagoGameState applyAction(int actionId) {
+        return applyAction(PentagoAction.fromId(actionId));
+    }
+
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    /**
+     * Places the piece of the acting player, rotates the quadrant and passes the turn.
+     */
+    @Override
+    public void doAction(PentagoAction action) {
+        board.setCell(action.getRow(), action.getCol(), action.getPlayer() + 1);
         board.rotateQuadrant(action.getQuadrant(), action.isClockwise());
-        return new PentagoGameState(board, 1 - currentPlayer);
+        currentPlayer = 1 - action.getPlayer();
+    }
+
+    /**
+     * Rotates the quadrant back, removes the placed piece and gives the turn back to the acting player.
+     */
+    @Override
+    public void undoAction(PentagoAction action) {
+        board.rotateQuadrant(action.getQuadrant(), !action.isClockwise());
+        board.setCell(action.getRow(), action.getCol(), 0);
+        currentPlayer = action.getPlayer();
+    }
+
+    public void doAction(int actionId) {
+        doAction(PentagoAction.fromId(actionId));
+    }
+
+    public void undoAction(int actionId) {
+        undoAction(PentagoAction.fromId(actionId));
     }
 
     @Override
@@ -47,111 +95,210 @@ public class PentagoGameState implements GameState<PentagoAction> {
 
     @Override
     public List<PentagoAction> getAvailableActions(int playerIndex) {
-        List<PentagoAction> actions = new ArrayList<>();
-        for (int i = 0; i < PentagoBoard.BOARD_SIZE; i++) {
-            for (int j = 0; j < PentagoBoard.BOARD_SIZE; j++) {
-                if (board.getCell(i, j) == 0) {
-                    for (int q = 0; q < 4; q++) {
-                        actions.add(new PentagoAction(i, j, q, true, playerIndex));
-                        actions.add(new PentagoAction(i, j, q, false, playerIndex));
-                    }
-                }
+        long empty = board.getEmptyMask();
+        List<PentagoAction> actions = new ArrayList<>(Long.bitCount(empty) * 8);
+        while (empty != 0) {
+            int firstId = PentagoAction.encode(Long.numberOfTrailingZeros(empty), 0, true, playerIndex);
+            for (int id = firstId; id < firstId + 8; id++) {
+                actions.add(PentagoAction.fromId(id));
             }
+            empty &= empty - 1;
         }
         return actions;
     }
 
-    public int checkForWinner() {
-        // Check horizontal, vertical, and diagonal lines
-        for (int i = 0; i < PentagoBoard.BOARD_SIZE; i++) {
-            for (int j = 0; j < PentagoBoard.BOARD_SIZE; j++) {
-                int player = board.getCell(i, j);
-                if (player != 0) {
-                    if (checkLine(i, j, 0, 1, player) || // horizontal
-                            checkLine(i, j, 1, 0, player) || // vertical
-                            checkLine(i, j, 1, 1, player) || // diagonal
-                            checkLine(i, j, 1, -1, player))  // other diagonal
-                    {
-                        return player - 1;
-                    }
-                }
-            }
+    @Override
+    public int countAvailableActions(int playerIndex) {
+        return Long.bitCount(board.getEmptyMask()) * 8;
+    }
+
+    @Override
+    public PentagoAction getRandomAction(int playerIndex, RandomGenerator random) {
+        long empty = board.getEmptyMask();
+        int emptyCells = Long.bitCount(empty);
+        if (emptyCells == 0) return null;
+        int choice = random.nextInt(emptyCells * 8);
+        for (int skip = choice >> 3; skip > 0; skip--) {
+            empty &= empty - 1;
         }
-        return -1; // No winner
+        int cell = Long.numberOfTrailingZeros(empty);
+        return PentagoAction.fromId(PentagoAction.encode(cell, 0, true, playerIndex) + (choice & 7));
     }
 
-    private boolean checkLine(int startRow, int startCol, int dRow, int dCol, int player) {
-        int count = 0;
-        for (int i = 0; i < 5; i++) {
-            int row = startRow + i * dRow;
-            int col = startCol + i * dCol;
-            if (row < 0 || row >= PentagoBoard.BOARD_SIZE || col < 0 || col >= PentagoBoard.BOARD_SIZE) {
-                return false;
-            }
-            if (board.getCell(row, col) == player) {
-                count++;
-            } else {
-                break;
+    @Override
+    public void forEachAvailableAction(int playerIndex, Consumer<? super PentagoAction> visitor) {
+        long empty = board.getEmptyMask();
+        while (empty != 0) {
+            int firstId = PentagoAction.encode(Long.numberOfTrailingZeros(empty), 0, true, playerIndex);
+            for (int id = firstId; id < firstId + 8; id++) {
+                visitor.accept(PentagoAction.fromId(id));
             }
+            empty &= empty - 1;
         }
-        return count == 5;
     }
 
-    private boolean isBoardFull() {
-        for (int i = 0; i < PentagoBoard.BOARD_SIZE; i++) {
-            for (int j = 0; j < PentagoBoard.BOARD_SIZE; j++) {
-                if (board.getCell(i, j) == 0) {
-                    return false;
+    /**
+     * Returns the available actions whose resulting positions are pairwise distinct, keeping one
+     * action for each resulting position. Rotating a quadrant that is symmetric under a quarter
+     * turn leaves it unchanged, so all such rotations collapse into a single action per cell, and
+     * a quadrant symmetric under a half turn only needs one direction. Rotations of the quadrant
+     * receiving the piece are compared by their resulting quadrant contents.
+     */
+    @Override
+    public List<PentagoAction> getDistinctActions(int playerIndex) {
+        List<PentagoAction> actions = new ArrayList<>();
+        long mask1 = board.getPlayerMask(0);
+        long mask2 = board.getPlayerMask(1);
+        long empty = board.getEmptyMask();
+        byte[] symmetry = new byte[4];
+        for (int q = 0; q < 4; q++) {
+            symmetry[q] = board.getQuadrantSymmetry(q);
+        }
+        // Contents of the placement quadrant already reached, as pattern1 | pattern2 << 9
+        int[] seen = new int[PentagoBoard.QUADRANT_SIZE * PentagoBoard.QUADRANT_SIZE * 3];
+
+        for (int placement = 0; placement < 4; placement++) {
+            long cells = empty & PentagoBoard.getQuadrantMask(placement);
+            int pattern1 = PentagoBoard.gatherQuadrant(mask1, placement);
+            int pattern2 = PentagoBoard.gatherQuadrant(mask2, placement);
+            int seenCount = 0;
+            while (cells != 0) {
+                int cell = Long.numberOfTrailingZeros(cells);
+                cells &= cells - 1;
+                int piece = PentagoBoard.gatherQuadrant(1L << cell, placement);
+                int placed1 = playerIndex == 0 ? pattern1 | piece : pattern1;
+                int placed2 = playerIndex == 1 ? pattern2 | piece : pattern2;
+
+                int unchangedQuadrant = -1;
+                for (int q = 0; q < 4; q++) {
+                    if (q == placement) continue;
+                    if (symmetry[q] == PentagoBoard.SYMMETRY_90) {
+                        if (unchangedQuadrant < 0) unchangedQuadrant = q;
+                        continue;
+                    }
+                    actions.add(PentagoAction.fromId(PentagoAction.encode(cell, q, true, playerIndex)));
+                    if (symmetry[q] == PentagoBoard.SYMMETRY_NONE) {
+                        actions.add(PentagoAction.fromId(PentagoAction.encode(cell, q, false, playerIndex)));
+                    }
+                }
+
+                if (unchangedQuadrant >= 0) {
+                    seenCount = addIfUnseen(actions, seen, seenCount, placed1 | placed2 << 9,
+                            PentagoAction.encode(cell, unchangedQuadrant, true, playerIndex));
+                }
+                for (int direction = 0; direction < 2; direction++) {
+                    int rotated = PentagoBoard.ROTATED_PATTERN[direction][placed1]
+                            | PentagoBoard.ROTATED_PATTERN[direction][placed2] << 9;
+                    seenCount = addIfUnseen(actions, seen, seenCount, rotated,
+                            PentagoAction.encode(cell, placement, direction == 0, playerIndex));
                 }
             }
         }
-        return true;
+        return actions;
     }
 
-    public PentagoBoard getBoard() {
-        return board;
+    private static int addIfUnseen(List<PentagoAction> actions, int[] seen, int seenCount, int contents, int actionId) {
+        for (int i = 0; i < seenCount; i++) {
+            if (seen[i] == contents) return seenCount;
+        }
+        seen[seenCount] = contents;
+        actions.add(PentagoAction.fromId(actionId));
+        return seenCount + 1;
     }
 
-    public int countAlignedPieces(int playerIndex) {
+    /**
+     * Writes the ids of the available actions into the given buffer, in the same order as
+     * {@link #getAvailableActions(int)}.
+     *
+     * @param playerIndex the player to move
+     * @param buffer      the destination, at least {@code 8 * NUM_CELLS} long
+     * @return the number of ids written
+     */
+    public int getAvailableActionIds(int playerIndex, int[] buffer) {
+        long empty = board.getEmptyMask();
         int count = 0;
-        int playerValue = playerIndex + 1;
-
-        // Controlla orizzontalmente e verticalmente
-        for (int i = 0; i < PentagoBoard.BOARD_SIZE; i++) {
-            count += countAlignedInLine(i, 0, 0, 1, playerValue); // Orizzontale
-            count += countAlignedInLine(0, i, 1, 0, playerValue); // Verticale
+        while (empty != 0) {
+            int firstId = PentagoAction.encode(Long.numberOfTrailingZeros(empty), 0, true, playerIndex);
+            for (int id = firstId; id < firstId + 8; id++) {
+                buffer[count++] = id;
+            }
+            empty &= empty - 1;
         }
+        return count;
+    }
 
-        // Controlla le diagonali
-        count += countAlignedInLine(0, 0, 1, 1, playerValue); // Diagonale principale
-        count += countAlignedInLine(0, PentagoBoard.BOARD_SIZE - 1, 1, -1, playerValue); // Diagonale secondaria
+    /**
+     * Returns which players have five in a row: bit 0 is set for player 0, bit 1 for player 1.
+     * Both bits are set when a rotation completes a line for both players at once.
+     *
+     * @return 0 if nobody has five in a row, otherwise a combination of the player bits
+     */
+    public int getWinnerMask() {
+        int winners = 0;
+        if (board.hasFiveInARow(0)) winners |= 1;
+        if (board.hasFiveInARow(1)) winners |= 2;
+        return winners;
+    }
 
-        return count;
+    /**
+     * Returns the index of the winning player, or -1 if there is no winner. A simultaneous five
+     * in a row for both players is a draw and also returns -1.
+     *
+     * @return the index of the winner, or -1
+     */
+    public int checkForWinner() {
+        int winners = getWinnerMask();
+        if (winners == 1) return 0;
+        if (winners == 2) return 1;
+        return -1; // No winner or simultaneous win
     }
 
-    private int countAlignedInLine(int startRow, int startCol, int dRow, int dCol, int playerValue) {
-        int count = 0;
-        int alignedCount = 0;
+    public boolean isSimultaneousWin() {
+        return getWinnerMask() == BOTH_PLAYERS_WIN;
+    }
 
-        for (int i = 0; i < PentagoBoard.BOARD_SIZE; i++) {
-            int row = startRow + i * dRow;
-            int col = startCol + i * dCol;
+    public PentagoBoard getBoard() {
+        return board;
+    }
 
-            if (row < 0 || row >= PentagoBoard.BOARD_SIZE || col < 0 || col >= PentagoBoard.BOARD_SIZE) {
-                break;
-            }
+    /**
+     * Returns the Zobrist key of the position, including the player to move.
+     */
+    @Override
+    public long stateKey() {
+        return currentPlayer == 1 ? board.getZobristKey() ^ PentagoZobrist.SIDE_TO_MOVE : board.getZobristKey();
+    }
 
-            if (board.getCell(row, col) == playerValue) {
-                alignedCount++;
-                if (alignedCount >= 3) {
-                    count++;
-                }
-            } else {
-                alignedCount = 0;
-            }
-        }
+    /**
+     * Returns the key of this position shared by its 8 symmetric positions, together with the
+     * transform back to this orientation.
+     */
+    public PentagoSymmetry.Canonical canonicalize() {
+        return PentagoSymmetry.canonicalize(board, currentPlayer);
+    }
 
-        return count;
+    public long canonicalKey() {
+        return PentagoSymmetry.canonicalKey(board, currentPlayer);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PentagoGameState that = (PentagoGameState) o;
+        return stateKey() == that.stateKey() &&
+                currentPlayer == that.currentPlayer &&
+                board.getPlayerMask(0) == that.board.getPlayerMask(0) &&
+                board.getPlayerMask(1) == that.board.getPlayerMask(1);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(stateKey());
+    }
+
+    public int countAlignedPieces(int playerIndex) {
+        return PentagoPatterns.countAlignedPieces(board, playerIndex);
     }
 
     public int countCenterPieces(int playerIndex) {
@@ -169,58 +316,21 @@ public class PentagoGameState implements GameState<PentagoAction> {
 
     int countLegalMoves(int playerIndex) {
         // Conta il numero di mosse legali disponibili per il giocatore
-        return getAvailableActions(playerIndex).size();
+        return countAvailableActions(playerIndex);
     }
 
     public int countNInARow(int playerIndex, int n) {
-        return board.countNInARow(playerIndex, n);
+        return PentagoPatterns.countNInARow(board, playerIndex, n);
     }
 
     int countBlockingMoves(int playerIndex, int opponentIndex) {
-        return board.countBlockingMoves(playerIndex, opponentIndex);
+        return PentagoPatterns.countPotentialBlocks(board, opponentIndex);
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     public double countThreats(int playerIndex, int lineLength) {
-        int threats = 0;
-        int playerValue = playerIndex + 1;
-
-        // Check all directions
-        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
-            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
-                threats += checkThreatInDirection(row, col, 1, 0, playerValue, lineLength);
-                threats += checkThreatInDirection(row, col, 0, 1, playerValue, lineLength);
-                threats += checkThreatInDirection(row, col, 1, 1, playerValue, lineLength);
-                threats += checkThreatInDirection(row, col, 1, -1, playerValue, lineLength);
-            }
-        }
-
-        return threats;
-    }
-
-    private int checkThreatInDirection(int startRow, int startCol, int dRow, int dCol, int playerValue, int lineLength) {
-        int count = 0;
-        int emptySpaces = 0;
-
-        for (int i = 0; i < lineLength; i++) {
-            int row = startRow + i * dRow;
-            int col = startCol + i * dCol;
-
-            if (row < 0 || row >= PentagoBoard.BOARD_SIZE || col < 0 || col >= PentagoBoard.BOARD_SIZE) {
-                return 0;
-            }
-
-            if (board.getCell(row, col) == playerValue) {
-                count++;
-            } else if (board.getCell(row, col) == 0) {
-                emptySpaces++;
-            } else {
-                return 0;
-            }
-        }
-
-        return (count == lineLength - 1 && emptySpaces == 1) ? 1 : 0;
+        return PentagoPatterns.countThreats(board, playerIndex, lineLength);
     }
 
     public double evaluatePositionalPotential(int playerIndex) {
@@ -250,138 +360,15 @@ public class PentagoGameState implements GameState<PentagoAction> {
     }
 
     public int countPotentialWinPaths(int playerIndex) {
-        int winPaths = 0;
-        int playerValue = playerIndex + 1;
-
-        // Check all possible lines
-        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
-            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
-                winPaths += checkWinPathInDirection(row, col, 1, 0, playerValue);
-                winPaths += checkWinPathInDirection(row, col, 0, 1, playerValue);
-                winPaths += checkWinPathInDirection(row, col, 1, 1, playerValue);
-                winPaths += checkWinPathInDirection(row, col, 1, -1, playerValue);
-            }
-        }
-
-        return winPaths;
-    }
-
-    private int checkWinPathInDirection(int startRow, int startCol, int dRow, int dCol, int playerValue) {
-        int count = 0;
-        int emptySpaces = 0;
-
-        for (int i = 0; i < 5; i++) {
-            int row = startRow + i * dRow;
-            int col = startCol + i * dCol;
-
-            if (row < 0 || row >= PentagoBoard.BOARD_SIZE || col < 0 || col >= PentagoBoard.BOARD_SIZE) {
-                return 0;
-            }
-
-            if (board.getCell(row, col) == playerValue) {
-                count++;
-            } else if (board.getCell(row, col) == 0) {
-                emptySpaces++;
-            } else {
-                return 0;
-            }
-        }
-
-        // Consider a potential win path if there are at least 3 player pieces and the rest are empty spaces
-        return (count >= 3 && count + emptySpaces == 5) ? 1 : 0;
+        return PentagoPatterns.countPotentialWinPaths(board, playerIndex);
     }
 
     public int countCriticalBlocks(int playerIndex, int opponentIndex) {
-        int criticalBlocks = 0;
-        int opponentValue = opponentIndex + 1;
-
-        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
-            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
-                if (board.getCell(row, col) == 0) {
-                    if (wouldBlockWin(row, col, opponentValue)) {
-                        criticalBlocks++;
-                    }
-                }
-            }
-        }
-
-        return criticalBlocks;
-    }
-
-    private boolean wouldBlockWin(int row, int col, int opponentValue) {
-        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
-        for (int[] dir : directions) {
-            if (checkLineForWin(row, col, dir[0], dir[1], opponentValue) ||
-                    checkLineForWin(row, col, -dir[0], -dir[1], opponentValue)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean checkLineForWin(int row, int col, int dRow, int dCol, int opponentValue) {
-        int count = 0;
-        for (int i = 1; i <= 4; i++) {
-            int newRow = row + i * dRow;
-            int newCol = col + i * dCol;
-            if (newRow < 0 || newRow >= PentagoBoard.BOARD_SIZE || newCol < 0 || newCol >= PentagoBoard.BOARD_SIZE) {
-                break;
-            }
-            if (board.getCell(newRow, newCol) == opponentValue) {
-                count++;
-            } else {
-                break;
-            }
-        }
-        return count == 4;
+        return PentagoPatterns.countCriticalBlocks(board, opponentIndex);
     }
 
     public int countPotentialBlocks(int playerIndex, int opponentIndex) {
-        int potentialBlocks = 0;
-        int opponentValue = opponentIndex + 1;
-
-        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
-            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
-                if (board.getCell(row, col) == 0) {
-                    if (wouldBlockPotentialWin(row, col, opponentValue)) {
-                        potentialBlocks++;
-                    }
-                }
-            }
-        }
-
-        return potentialBlocks;
-    }
-
-    private boolean wouldBlockPotentialWin(int row, int col, int opponentValue) {
-        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
-        for (int[] dir : directions) {
-            if (checkLineForPotentialWin(row, col, dir[0], dir[1], opponentValue) ||
-                    checkLineForPotentialWin(row, col, -dir[0], -dir[1], opponentValue)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean checkLineForPotentialWin(int row, int col, int dRow, int dCol, int opponentValue) {
-        int count = 0;
-        int emptySpaces = 0;
-        for (int i = 1; i <= 4; i++) {
-            int newRow = row + i * dRow;
-            int newCol = col + i * dCol;
-            if (newRow < 0 || newRow >= PentagoBoard.BOARD_SIZE || newCol < 0 || newCol >= PentagoBoard.BOARD_SIZE) {
-                break;
-            }
-            if (board.getCell(newRow, newCol) == opponentValue) {
-                count++;
-            } else if (board.getCell(newRow, newCol) == 0) {
-                emptySpaces++;
-            } else {
-                break;
-            }
-        }
-        return count == 3 && emptySpaces == 1;
+        return PentagoPatterns.countPotentialBlocks(board, opponentIndex);
     }
 
     public PentagoGameState simulateRotation(int quadrant, boolean clockwise) {
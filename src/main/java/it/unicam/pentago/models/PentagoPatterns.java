@@ -0,0 +1,379 @@
+package it.unicam.pentago.models;
+
+import java.util.Arrays;
+
+/**
+ * Table-driven line features of a Pentago board.
+ * The board is split into its 34 maximal lines (6 rows, 6 columns and 11 diagonals in each
+ * direction, corners included). The content of a line of length {@code L} is encoded as the base-3
+ * index {@code sum(value(cell_i) * 3^i)}, where value is 0 for empty, 1 for player 1 and 2 for
+ * player 2. Every feature is precomputed for every possible line content, so counting a feature
+ * over the board costs one table lookup per line.
+ * {@link PentagoBoard} keeps the entry of every line up to date as pieces are placed and quadrants
+ * rotated, together with the totals of the most used features, which are then read in O(1).
+ */
+public final class PentagoPatterns {
+    static final int NUM_LINES = 34;
+    private static final int MAX_LENGTH = PentagoBoard.BOARD_SIZE;
+
+    // LINE_CELLS[line] -> cells of the line, in direction order
+    static final int[][] LINE_CELLS = new int[NUM_LINES][];
+    // Lines crossing each cell, one per direction, and the position of the cell along each of them
+    static final int[][] CELL_LINES = new int[PentagoBoard.NUM_CELLS][4];
+    static final int[][] CELL_LINE_POSITIONS = new int[PentagoBoard.NUM_CELLS][4];
+    // Lines crossing each quadrant
+    static final int[][] QUADRANT_LINES = new int[4][];
+    // Offset of the patterns of length L in the flat tables below
+    static final int[] PATTERN_OFFSET = new int[MAX_LENGTH + 2];
+    static final int[] POWERS_OF_THREE = new int[MAX_LENGTH + 1];
+    // BASE3[bits] -> base-3 index of a line holding pieces of value 1 on the set bits
+    private static final int[] BASE3 = new int[1 << MAX_LENGTH];
+
+    // Per player and per pattern:
+    // RUNS[player][n][entry]     -> windows of n consecutive pieces of the player (overlapping)
+    // THREATS[player][n][entry]  -> windows of n cells with n - 1 pieces of the player and one empty cell
+    // WIN_PATHS[player][entry]   -> windows of 5 cells with at least 3 pieces of the player and no opponent piece
+    // ALIGNED[player][entry]     -> cells closing a run of 3 or more pieces, counted on full 6-cell lines only
+    // CRITICAL[player][entry]    -> positions of empty cells followed by 4 pieces of the player
+    // POTENTIAL[player][entry]   -> positions of empty cells followed by 3 pieces of the player and one empty cell
+    static final byte[][][] RUNS;
+    static final byte[][][] THREATS;
+    static final byte[][] WIN_PATHS;
+    static final byte[][] ALIGNED;
+    static final byte[][] CRITICAL;
+    static final byte[][] POTENTIAL;
+
+    // Features kept up to date by PentagoBoard, packed per player in 32 bits starting at bit 32 * player.
+    // PACKED_FEATURES[entry] holds the features of a single line, the board keeps their sum over all lines.
+    // Field widths fit the largest board totals, so sums never carry into the next field.
+    static final int THREATS_4_SHIFT = 0;   // THREATS[player][4], 6 bits
+    static final int RUNS_2_SHIFT = 6;      // RUNS[player][2], 7 bits
+    static final int RUNS_3_SHIFT = 13;     // RUNS[player][3], 7 bits
+    static final int WIN_PATHS_SHIFT = 20;  // WIN_PATHS[player], 6 bits
+    static final int ALIGNED_SHIFT = 26;    // ALIGNED[player], 6 bits
+    static final long[] PACKED_FEATURES;
+    private static final int[] EMPTY_LINE_ENTRIES = new int[NUM_LINES];
+
+    static {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        int line = 0;
+        for (int d = 0; d < directions.length; d++) {
+            int dRow = directions[d][0];
+            int dCol = directions[d][1];
+            for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+                for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
+                    int prevRow = row - dRow;
+                    int prevCol = col - dCol;
+                    if (inBoard(prevRow, prevCol)) {
+                        continue; // not the first cell of a line
+                    }
+                    int length = 0;
+                    while (inBoard(row + length * dRow, col + length * dCol)) {
+                        length++;
+                    }
+                    int[] cells = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        cells[i] = PentagoBoard.cellIndex(row + i * dRow, col + i * dCol);
+                        CELL_LINES[cells[i]][d] = line;
+                        CELL_LINE_POSITIONS[cells[i]][d] = i;
+                    }
+                    LINE_CELLS[line++] = cells;
+                }
+            }
+        }
+
+        POWERS_OF_THREE[0] = 1;
+        for (int i = 1; i <= MAX_LENGTH; i++) {
+            POWERS_OF_THREE[i] = POWERS_OF_THREE[i - 1] * 3;
+        }
+        for (int length = 1; length <= MAX_LENGTH + 1; length++) {
+            PATTERN_OFFSET[length] = PATTERN_OFFSET[length - 1] + (length > 1 ? POWERS_OF_THREE[length - 1] : 0);
+        }
+        for (int bits = 0; bits < BASE3.length; bits++) {
+            for (int i = 0; i < MAX_LENGTH; i++) {
+                if ((bits & (1 << i)) != 0) BASE3[bits] += POWERS_OF_THREE[i];
+            }
+        }
+
+        for (int q = 0; q < 4; q++) {
+            long quadrantMask = PentagoBoard.getQuadrantMask(q);
+            int count = 0;
+            int[] crossing = new int[NUM_LINES];
+            for (int l = 0; l < NUM_LINES; l++) {
+                EMPTY_LINE_ENTRIES[l] = PATTERN_OFFSET[LINE_CELLS[l].length];
+                for (int cell : LINE_CELLS[l]) {
+                    if ((quadrantMask & (1L << cell)) != 0) {
+                        crossing[count++] = l;
+                        break;
+                    }
+                }
+            }
+            QUADRANT_LINES[q] = Arrays.copyOf(crossing, count);
+        }
+
+        int entries = PATTERN_OFFSET[MAX_LENGTH + 1];
+        RUNS = new byte[2][MAX_LENGTH + 1][entries];
+        THREATS = new byte[2][MAX_LENGTH + 1][entries];
+        WIN_PATHS = new byte[2][entries];
+        ALIGNED = new byte[2][entries];
+        CRITICAL = new byte[2][entries];
+        POTENTIAL = new byte[2][entries];
+        int[] values = new int[MAX_LENGTH];
+        for (int length = 1; length <= MAX_LENGTH; length++) {
+            for (int pattern = 0; pattern < POWERS_OF_THREE[length]; pattern++) {
+                for (int i = 0, rest = pattern; i < length; i++, rest /= 3) {
+                    values[i] = rest % 3;
+                }
+                int entry = PATTERN_OFFSET[length] + pattern;
+                for (int player = 0; player < 2; player++) {
+                    int own = player + 1;
+                    for (int n = 1; n <= MAX_LENGTH; n++) {
+                        RUNS[player][n][entry] = (byte) countWindows(values, length, n, own, n, 0);
+                        THREATS[player][n][entry] = (byte) countWindows(values, length, n, own, n - 1, 1);
+                    }
+                    WIN_PATHS[player][entry] = (byte) countWinPaths(values, length, own);
+                    ALIGNED[player][entry] = (byte) (length == MAX_LENGTH ? countAligned(values, length, own) : 0);
+                    CRITICAL[player][entry] = (byte) blockPositions(values, length, own, 4, 0);
+                    POTENTIAL[player][entry] = (byte) blockPositions(values, length, own, 3, 1);
+                }
+            }
+        }
+
+        PACKED_FEATURES = new long[entries];
+        for (int entry = 0; entry < entries; entry++) {
+            long packed = 0L;
+            for (int player = 0; player < 2; player++) {
+                int base = 32 * player;
+                packed |= (long) THREATS[player][4][entry] << (base + THREATS_4_SHIFT)
+                        | (long) RUNS[player][2][entry] << (base + RUNS_2_SHIFT)
+                        | (long) RUNS[player][3][entry] << (base + RUNS_3_SHIFT)
+                        | (long) WIN_PATHS[player][entry] << (base + WIN_PATHS_SHIFT)
+                        | (long) ALIGNED[player][entry] << (base + ALIGNED_SHIFT);
+            }
+            PACKED_FEATURES[entry] = packed;
+        }
+    }
+
+    private PentagoPatterns() {
+    }
+
+    private static boolean inBoard(int row, int col) {
+        return row >= 0 && row < PentagoBoard.BOARD_SIZE && col >= 0 && col < PentagoBoard.BOARD_SIZE;
+    }
+
+    private static int countWindows(int[] values, int length, int window, int own, int ownCount, int emptyCount) {
+        int count = 0;
+        for (int start = 0; start + window <= length; start++) {
+            int owned = 0;
+            int empty = 0;
+            for (int i = start; i < start + window; i++) {
+                if (values[i] == own) owned++;
+                else if (values[i] == 0) empty++;
+            }
+            if (owned == ownCount && empty == emptyCount) count++;
+        }
+        return count;
+    }
+
+    private static int countWinPaths(int[] values, int length, int own) {
+        int count = 0;
+        for (int start = 0; start + 5 <= length; start++) {
+            int owned = 0;
+            int empty = 0;
+            for (int i = start; i < start + 5; i++) {
+                if (values[i] == own) owned++;
+                else if (values[i] == 0) empty++;
+            }
+            if (owned >= 3 && owned + empty == 5) count++;
+        }
+        return count;
+    }
+
+    private static int countAligned(int[] values, int length, int own) {
+        int count = 0;
+        int aligned = 0;
+        for (int i = 0; i < length; i++) {
+            aligned = values[i] == own ? aligned + 1 : 0;
+            if (aligned >= 3) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Marks the empty positions from which the next 4 cells, in either direction along the line,
+     * hold exactly {@code ownCount} pieces of the player and {@code emptyCount} empty cells.
+     */
+    private static int blockPositions(int[] values, int length, int own, int ownCount, int emptyCount) {
+        int positions = 0;
+        for (int start = 0; start < length; start++) {
+            if (values[start] != 0) continue;
+            for (int step = -1; step <= 1; step += 2) {
+                int end = start + 4 * step;
+                if (end < 0 || end >= length) continue;
+                int owned = 0;
+                int empty = 0;
+                for (int i = 1; i <= 4; i++) {
+                    int value = values[start + i * step];
+                    if (value == own) owned++;
+                    else if (value == 0) empty++;
+                }
+                if (owned == ownCount && empty == emptyCount) {
+                    positions |= 1 << start;
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Computes the entry of a line in the feature tables, i.e. its pattern offset plus its base-3 index.
+     */
+    static int lineEntry(long mask1, long mask2, int line) {
+        int[] cells = LINE_CELLS[line];
+        int bits1 = 0;
+        int bits2 = 0;
+        for (int i = 0; i < cells.length; i++) {
+            bits1 |= (int) ((mask1 >>> cells[i]) & 1L) << i;
+            bits2 |= (int) ((mask2 >>> cells[i]) & 1L) << i;
+        }
+        return PATTERN_OFFSET[cells.length] + BASE3[bits1] + 2 * BASE3[bits2];
+    }
+
+    static int[] emptyLineEntries() {
+        return EMPTY_LINE_ENTRIES.clone();
+    }
+
+    /**
+     * Updates the entries of the 4 lines crossing a cell whose value changed, and returns the updated packed features.
+     */
+    static long updateCell(int[] lineEntries, long features, int cell, int oldValue, int newValue) {
+        for (int d = 0; d < 4; d++) {
+            int line = CELL_LINES[cell][d];
+            int oldEntry = lineEntries[line];
+            int newEntry = oldEntry + (newValue - oldValue) * POWERS_OF_THREE[CELL_LINE_POSITIONS[cell][d]];
+            lineEntries[line] = newEntry;
+            features = features - PACKED_FEATURES[oldEntry] + PACKED_FEATURES[newEntry];
+        }
+        return features;
+    }
+
+    /**
+     * Recomputes the entries of the lines crossing a rotated quadrant, and returns the updated packed features.
+     */
+    static long updateQuadrant(int[] lineEntries, long features, int quadrant, long mask1, long mask2) {
+        for (int line : QUADRANT_LINES[quadrant]) {
+            int oldEntry = lineEntries[line];
+            int newEntry = lineEntry(mask1, mask2, line);
+            lineEntries[line] = newEntry;
+            features = features - PACKED_FEATURES[oldEntry] + PACKED_FEATURES[newEntry];
+        }
+        return features;
+    }
+
+    static int unpack(long features, int playerIndex, int shift, int width) {
+        return (int) (features >>> (32 * playerIndex + shift)) & ((1 << width) - 1);
+    }
+
+    private static int sum(PentagoBoard board, byte[] table) {
+        int[] lineEntries = board.getLineEntries();
+        int total = 0;
+        for (int line = 0; line < NUM_LINES; line++) {
+            total += table[lineEntries[line]];
+        }
+        return total;
+    }
+
+    private static int countMarkedCells(PentagoBoard board, byte[] table) {
+        int[] lineEntries = board.getLineEntries();
+        long marked = 0L;
+        for (int line = 0; line < NUM_LINES; line++) {
+            int positions = table[lineEntries[line]];
+            while (positions != 0) {
+                marked |= 1L << LINE_CELLS[line][Integer.numberOfTrailingZeros(positions)];
+                positions &= positions - 1;
+            }
+        }
+        return Long.bitCount(marked);
+    }
+
+    /**
+     * Counts the critical and potential blocks against both players in a single pass over the lines.
+     *
+     * @param board     the board
+     * @param critical  receives, for each player, the value of {@link #countCriticalBlocks} against that player
+     * @param potential receives, for each player, the value of {@link #countPotentialBlocks} against that player
+     */
+    public static void countBlocks(PentagoBoard board, int[] critical, int[] potential) {
+        int[] lineEntries = board.getLineEntries();
+        long critical1 = 0L;
+        long critical2 = 0L;
+        long potential1 = 0L;
+        long potential2 = 0L;
+        for (int line = 0; line < NUM_LINES; line++) {
+            int entry = lineEntries[line];
+            int positions = CRITICAL[0][entry] | CRITICAL[1][entry] | POTENTIAL[0][entry] | POTENTIAL[1][entry];
+            while (positions != 0) {
+                int position = Integer.numberOfTrailingZeros(positions);
+                long cell = 1L << LINE_CELLS[line][position];
+                int bit = 1 << position;
+                if ((CRITICAL[0][entry] & bit) != 0) critical1 |= cell;
+                if ((CRITICAL[1][entry] & bit) != 0) critical2 |= cell;
+                if ((POTENTIAL[0][entry] & bit) != 0) potential1 |= cell;
+                if ((POTENTIAL[1][entry] & bit) != 0) potential2 |= cell;
+                positions &= positions - 1;
+            }
+        }
+        critical[0] = Long.bitCount(critical1);
+        critical[1] = Long.bitCount(critical2);
+        potential[0] = Long.bitCount(potential1);
+        potential[1] = Long.bitCount(potential2);
+    }
+
+    /**
+     * Counts the windows of {@code n} consecutive pieces of the player along rows, columns and diagonals.
+     * Overlapping windows are counted separately.
+     */
+    public static int countNInARow(PentagoBoard board, int playerIndex, int n) {
+        if (n == 2) return unpack(board.getLineFeatures(), playerIndex, RUNS_2_SHIFT, 7);
+        if (n == 3) return unpack(board.getLineFeatures(), playerIndex, RUNS_3_SHIFT, 7);
+        if (n < 1 || n > MAX_LENGTH) return 0;
+        return sum(board, RUNS[playerIndex][n]);
+    }
+
+    /**
+     * Counts the windows of {@code lineLength} cells holding {@code lineLength - 1} pieces of the player and one empty cell.
+     */
+    public static int countThreats(PentagoBoard board, int playerIndex, int lineLength) {
+        if (lineLength == 4) return unpack(board.getLineFeatures(), playerIndex, THREATS_4_SHIFT, 6);
+        if (lineLength < 1 || lineLength > MAX_LENGTH) return 0;
+        return sum(board, THREATS[playerIndex][lineLength]);
+    }
+
+    /**
+     * Counts the windows of 5 cells with at least 3 pieces of the player and no opponent piece.
+     */
+    public static int countPotentialWinPaths(PentagoBoard board, int playerIndex) {
+        return unpack(board.getLineFeatures(), playerIndex, WIN_PATHS_SHIFT, 6);
+    }
+
+    /**
+     * Counts, on rows, columns and the two main diagonals, the cells closing a run of 3 or more pieces of the player.
+     */
+    public static int countAlignedPieces(PentagoBoard board, int playerIndex) {
+        return unpack(board.getLineFeatures(), playerIndex, ALIGNED_SHIFT, 6);
+    }
+
+    /**
+     * Counts the empty cells followed, in some direction, by 4 pieces of the opponent.
+     */
+    public static int countCriticalBlocks(PentagoBoard board, int opponentIndex) {
+        return countMarkedCells(board, CRITICAL[opponentIndex]);
+    }
+
+    /**
+     * Counts the empty cells followed, in some direction, by 3 pieces of the opponent and one empty cell.
+     */
+    public static int countPotentialBlocks(PentagoBoard board, int opponentIndex) {
+        return countMarkedCells(board, POTENTIAL[opponentIndex]);
+    }
+}
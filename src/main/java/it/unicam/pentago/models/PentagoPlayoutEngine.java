@@ -0,0 +1,161 @@
+package it.unicam.pentago.models;
+
+import com.lostrucos.jabtbg.algorithms.mcts.PlayoutEngine;
+
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays Pentago games to the end on a pair of bitboards, without creating actions or touching the board until the
+ * game is over. Moves are handled as action ids, see {@link PentagoAction#encode}.
+ * The engine has no state of its own and can be shared by several threads.
+ */
+public final class PentagoPlayoutEngine implements PlayoutEngine<PentagoGameState, PentagoAction> {
+
+    /**
+     * How the moves of a playout are chosen. Each policy includes the previous one.
+     */
+    public enum RolloutPolicy {
+        /**
+         * Every legal move with the same probability.
+         */
+        UNIFORM,
+        /**
+         * A winning move when there is one, otherwise a uniform move.
+         */
+        WIN_IMMEDIATELY,
+        /**
+         * A winning move when there is one, otherwise a uniform move that does not give the opponent a winning move,
+         * if one is found within a few attempts.
+         */
+        AVOID_LOSS
+    }
+
+    // Mosse casuali provate prima di rassegnarsi a una mossa perdente
+    private static final int AVOID_LOSS_ATTEMPTS = 8;
+
+    private final RolloutPolicy policy;
+
+    public PentagoPlayoutEngine(RolloutPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    public RolloutPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public PentagoGameState playout(PentagoGameState state, RandomGenerator random) {
+        return playout(state, random, null);
+    }
+
+    @Override
+    public PentagoGameState playout(PentagoGameState state, RandomGenerator random, MoveListener listener) {
+        PentagoBoard board = state.getBoard();
+        long[] pieces = {board.getPlayerMask(0), board.getPlayerMask(1)};
+        int player = state.getCurrentPlayer();
+        while (!isOver(pieces[0], pieces[1])) {
+            int move = chooseMove(pieces[player], pieces[1 - player], random);
+            if (listener != null) {
+                listener.onMove(player, PentagoAction.encode(PentagoAction.cellOf(move), PentagoAction.quadrantOf(move),
+                        PentagoAction.isClockwise(move), player));
+            }
+            long placed = pieces[player] | 1L << PentagoAction.cellOf(move);
+            pieces[player] = PentagoBoard.rotate(placed, PentagoAction.quadrantOf(move), PentagoAction.isClockwise(move));
+            pieces[1 - player] = PentagoBoard.rotate(pieces[1 - player], PentagoAction.quadrantOf(move), PentagoAction.isClockwise(move));
+            player = 1 - player;
+        }
+        board.setPieces(pieces[0], pieces[1]);
+        state.setCurrentPlayer(player);
+        return state;
+    }
+
+    private static boolean isOver(long pieces1, long pieces2) {
+        return (pieces1 | pieces2) == PentagoBoard.FULL_MASK
+                || PentagoBoard.containsWinLine(pieces1) || PentagoBoard.containsWinLine(pieces2);
+    }
+
+    /**
+     * Chooses the move of the player owning {@code own} according to the policy.
+     *
+     * @return the move, as an action id of player 0
+     */
+    private int chooseMove(long own, long opponent, RandomGenerator random) {
+        long empty = ~(own | opponent) & PentagoBoard.FULL_MASK;
+        if (policy == RolloutPolicy.UNIFORM) {
+            return randomMove(empty, random);
+        }
+        int winningMove = findWinningMove(own, opponent, random);
+        if (winningMove >= 0) {
+            return winningMove;
+        }
+        int move = randomMove(empty, random);
+        if (policy == RolloutPolicy.AVOID_LOSS) {
+            for (int attempt = 1; attempt < AVOID_LOSS_ATTEMPTS && givesWinningMove(own, opponent, move); attempt++) {
+                move = randomMove(empty, random);
+            }
+        }
+        return move;
+    }
+
+    private static int randomMove(long empty, RandomGenerator random) {
+        int choice = random.nextInt(Long.bitCount(empty) * 8);
+        for (int skip = choice >> 3; skip > 0; skip--) {
+            empty &= empty - 1;
+        }
+        return PentagoAction.encode(Long.numberOfTrailingZeros(empty), 0, true, 0) + (choice & 7);
+    }
+
+    /**
+     * Looks for a move completing five in a row for the player owning {@code own} and not for the opponent,
+     * starting from a random rotation.
+     * Placing a piece and then rotating is the same as rotating and then placing the piece on the rotated cell,
+     * so the winning cells of each rotation are found on the rotated bitboards and rotated back.
+     *
+     * @return the winning move, as an action id of player 0, or -1 if there is none
+     */
+    static int findWinningMove(long own, long opponent, RandomGenerator random) {
+        long empty = ~(own | opponent) & PentagoBoard.FULL_MASK;
+        int first = random.nextInt(8);
+        for (int i = 0; i < 8; i++) {
+            int rotation = (first + i) & 7;
+            int quadrant = rotation >> 1;
+            boolean clockwise = (rotation & 1) == 0;
+            if (PentagoBoard.containsWinLine(PentagoBoard.rotate(opponent, quadrant, clockwise))) {
+                continue; // vincerebbe anche l'avversario
+            }
+            long rotatedWins = PentagoBoard.winningPlacements(PentagoBoard.rotate(own, quadrant, clockwise),
+                    PentagoBoard.rotate(empty, quadrant, clockwise));
+            long wins = PentagoBoard.rotate(rotatedWins, quadrant, !clockwise);
+            if (wins != 0) {
+                return PentagoAction.encode(Long.numberOfTrailingZeros(wins), quadrant, clockwise, 0);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether after the given move of the player owning {@code own} the opponent can win with their next move,
+     * or has already won.
+     */
+    private static boolean givesWinningMove(long own, long opponent, int move) {
+        int quadrant = PentagoAction.quadrantOf(move);
+        boolean clockwise = PentagoAction.isClockwise(move);
+        long nextOwn = PentagoBoard.rotate(own | 1L << PentagoAction.cellOf(move), quadrant, clockwise);
+        long nextOpponent = PentagoBoard.rotate(opponent, quadrant, clockwise);
+        if (PentagoBoard.containsWinLine(nextOpponent)) {
+            return true;
+        }
+        long empty = ~(nextOwn | nextOpponent) & PentagoBoard.FULL_MASK;
+        for (int rotation = 0; rotation < 8; rotation++) {
+            int nextQuadrant = rotation >> 1;
+            boolean nextClockwise = (rotation & 1) == 0;
+            if (!PentagoBoard.containsWinLine(PentagoBoard.rotate(nextOwn, nextQuadrant, nextClockwise))
+                    && PentagoBoard.winningPlacements(PentagoBoard.rotate(nextOpponent, nextQuadrant, nextClockwise),
+                    PentagoBoard.rotate(empty, nextQuadrant, nextClockwise)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+package it.unicam.pentago.models;
+
+/**
+ * The 8 symmetries of the Pentago board (4 rotations, optionally followed by a left-right mirror).
+ * Every symmetry maps quadrants onto quadrants, so it commutes with quadrant rotations once the
+ * action is transformed too: transforming a position and then playing the transformed action gives
+ * the transformed successor.
+ * Transform {@code t} rotates the board {@code t % 4} times clockwise and mirrors it when {@code t >= 4}.
+ */
+public final class PentagoSymmetry {
+    public static final int IDENTITY = 0;
+    public static final int NUM_TRANSFORMS = 8;
+
+    private static final int[][] CELL_MAP = new int[NUM_TRANSFORMS][PentagoBoard.NUM_CELLS];
+    private static final int[][] QUADRANT_MAP = new int[NUM_TRANSFORMS][4];
+    // LOCAL_PATTERN[t][quadrant][pattern] -> pattern of the transformed quadrant, see PentagoBoard.gatherQuadrant
+    private static final short[][][] LOCAL_PATTERN = new short[NUM_TRANSFORMS][4][1 << 9];
+    private static final int[] INVERSE = new int[NUM_TRANSFORMS];
+
+    static {
+        int n = PentagoBoard.BOARD_SIZE;
+        for (int t = 0; t < NUM_TRANSFORMS; t++) {
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    int r = row;
+                    int c = col;
+                    for (int i = 0; i < t % 4; i++) {
+                        int rotatedRow = c;
+                        c = n - 1 - r;
+                        r = rotatedRow;
+                    }
+                    if (t >= 4) {
+                        c = n - 1 - c;
+                    }
+                    CELL_MAP[t][PentagoBoard.cellIndex(row, col)] = PentagoBoard.cellIndex(r, c);
+                }
+            }
+            for (int q = 0; q < 4; q++) {
+                int corner = CELL_MAP[t][Long.numberOfTrailingZeros(PentagoBoard.getQuadrantMask(q))];
+                int target = (corner / n / PentagoBoard.QUADRANT_SIZE) * 2 + (corner % n) / PentagoBoard.QUADRANT_SIZE;
+                QUADRANT_MAP[t][q] = target;
+                for (int pattern = 0; pattern < (1 << 9); pattern++) {
+                    long transformed = transformMask(t, PentagoBoard.scatterQuadrant(q, pattern));
+                    LOCAL_PATTERN[t][q][pattern] = (short) PentagoBoard.gatherQuadrant(transformed, target);
+                }
+            }
+        }
+        for (int t = 0; t < NUM_TRANSFORMS; t++) {
+            for (int u = 0; u < NUM_TRANSFORMS; u++) {
+                if (CELL_MAP[u][CELL_MAP[t][1]] == 1 && CELL_MAP[u][CELL_MAP[t][PentagoBoard.BOARD_SIZE]] == PentagoBoard.BOARD_SIZE) {
+                    INVERSE[t] = u;
+                }
+            }
+        }
+    }
+
+    private PentagoSymmetry() {
+    }
+
+    public static int inverse(int transform) {
+        return INVERSE[transform];
+    }
+
+    public static boolean isReflection(int transform) {
+        return transform >= 4;
+    }
+
+    public static int transformCell(int transform, int cell) {
+        return CELL_MAP[transform][cell];
+    }
+
+    public static int transformQuadrant(int transform, int quadrant) {
+        return QUADRANT_MAP[transform][quadrant];
+    }
+
+    public static long transformMask(int transform, long mask) {
+        long transformed = 0L;
+        while (mask != 0) {
+            transformed |= 1L << CELL_MAP[transform][Long.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return transformed;
+    }
+
+    /**
+     * Maps an action onto the transformed board. Mirrors reverse the rotation direction.
+     */
+    public static PentagoAction transformAction(int transform, PentagoAction action) {
+        int cell = CELL_MAP[transform][PentagoBoard.cellIndex(action.getRow(), action.getCol())];
+        return PentagoAction.of(cell / PentagoBoard.BOARD_SIZE, cell % PentagoBoard.BOARD_SIZE,
+                QUADRANT_MAP[transform][action.getQuadrant()],
+                action.isClockwise() != isReflection(transform), action.getPlayer());
+    }
+
+    public static PentagoBoard transformBoard(int transform, PentagoBoard board) {
+        PentagoBoard transformed = new PentagoBoard();
+        for (int cell = 0; cell < PentagoBoard.NUM_CELLS; cell++) {
+            int value = board.getCell(cell / PentagoBoard.BOARD_SIZE, cell % PentagoBoard.BOARD_SIZE);
+            if (value != 0) {
+                int target = CELL_MAP[transform][cell];
+                transformed.setCell(target / PentagoBoard.BOARD_SIZE, target % PentagoBoard.BOARD_SIZE, value);
+            }
+        }
+        return transformed;
+    }
+
+    /**
+     * Computes the Zobrist key of the transformed position without building it.
+     */
+    public static long transformedKey(int transform, PentagoBoard board, int currentPlayer) {
+        long key = currentPlayer == 1 ? PentagoZobrist.SIDE_TO_MOVE : 0L;
+        for (int q = 0; q < 4; q++) {
+            key ^= quadrantKey(transform, q, PentagoBoard.gatherQuadrant(board.getPlayerMask(0), q),
+                    PentagoBoard.gatherQuadrant(board.getPlayerMask(1), q));
+        }
+        return key;
+    }
+
+    /**
+     * Finds the symmetry giving the smallest Zobrist key of the position.
+     *
+     * @param board         the board
+     * @param currentPlayer the player to move
+     * @return the canonical key with the transforms between the two orientations
+     */
+    public static Canonical canonicalize(PentagoBoard board, int currentPlayer) {
+        int transform = canonicalTransform(board, currentPlayer);
+        return new Canonical(transformedKey(transform, board, currentPlayer), transform);
+    }
+
+    public static long canonicalKey(PentagoBoard board, int currentPlayer) {
+        return transformedKey(canonicalTransform(board, currentPlayer), board, currentPlayer);
+    }
+
+    private static int canonicalTransform(PentagoBoard board, int currentPlayer) {
+        long bestKey = 0L;
+        int bestTransform = -1;
+        for (int t = 0; t < NUM_TRANSFORMS; t++) {
+            long key = transformedKey(t, board, currentPlayer);
+            if (bestTransform < 0 || key < bestKey) {
+                bestKey = key;
+                bestTransform = t;
+            }
+        }
+        return bestTransform;
+    }
+
+    private static long quadrantKey(int transform, int quadrant, int pattern1, int pattern2) {
+        int target = QUADRANT_MAP[transform][quadrant];
+        short[] local = LOCAL_PATTERN[transform][quadrant];
+        return PentagoZobrist.QUADRANT[0][target][local[pattern1]] ^ PentagoZobrist.QUADRANT[1][target][local[pattern2]];
+    }
+
+    /**
+     * The canonical key of a position and the symmetry linking it to the original orientation.
+     */
+    public static final class Canonical {
+        private final long key;
+        private final int transform;
+
+        Canonical(long key, int transform) {
+            this.key = key;
+            this.transform = transform;
+        }
+
+        /**
+         * Returns the smallest key among the 8 symmetric positions.
+         */
+        public long getKey() {
+            return key;
+        }
+
+        /**
+         * Returns the transform mapping the original position onto the canonical one.
+         */
+        public int getTransformToCanonical() {
+            return transform;
+        }
+
+        /**
+         * Returns the transform mapping the canonical position back onto the original one,
+         * e.g. to translate an action stored for the canonical position.
+         */
+        public int getTransformToOriginal() {
+            return INVERSE[transform];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package it.unicam.pentago.models;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for Pentago positions. The tables are generated from a fixed seed, so keys are
+ * stable across runs.
+ */
+final class PentagoZobrist {
+    // CELL[player][cell] -> key of a piece of the player on the cell
+    static final long[][] CELL = new long[2][PentagoBoard.NUM_CELLS];
+    // QUADRANT[player][quadrant][local pattern] -> combined key of the pieces of the pattern
+    static final long[][][] QUADRANT = new long[2][4][1 << 9];
+    // Key toggled when player 1 (the second player) is to move
+    static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_BA11_2024L);
+        for (int player = 0; player < 2; player++) {
+            for (int cell = 0; cell < PentagoBoard.NUM_CELLS; cell++) {
+                CELL[player][cell] = random.nextLong();
+            }
+        }
+        SIDE_TO_MOVE = random.nextLong();
+
+        for (int player = 0; player < 2; player++) {
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                for (int pattern = 0; pattern < QUADRANT[player][quadrant].length; pattern++) {
+                    QUADRANT[player][quadrant][pattern] = keyOf(PentagoBoard.scatterQuadrant(quadrant, pattern), player);
+                }
+            }
+        }
+    }
+
+    private PentagoZobrist() {
+    }
+
+    /**
+     * Computes from scratch the key of the pieces of one player.
+     */
+    static long keyOf(long mask, int player) {
+        long key = 0L;
+        while (mask != 0) {
+            key ^= CELL[player][Long.numberOfTrailingZeros(mask)];
+            mask &= mask - 1;
+        }
+        return key;
+    }
+}
@@ -5,9 +5,8 @@ import it.unicam.pentago.models.PentagoGameState;
 import com.lostrucos.jabtbg.core.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class BalancedPentagoUtility implements UtilityStrategy<PentagoGameState, PentagoAction> {
+public class BalancedPentagoUtility extends PentagoUtilityStrategy {
     private List<PentagoStrategy> strategies;
 
     public BalancedPentagoUtility() {
@@ -20,27 +19,32 @@ public class BalancedPentagoUtility implements UtilityStrategy<PentagoGameState,
     }
 
     @Override
-    public double calculateUtility(PentagoGameState state, int playerIndex) {
+    public double evaluate(PentagoFeatures features, int playerIndex) {
         // Check for immediate win or loss
-        int winner = state.checkForWinner();
+        int winner = features.getWinner();
         if (winner == playerIndex) return 1.0;
         if (winner != -1) return 0.0;
-        if (state.isTie()) return 0.5;
+        if (features.isTie()) return 0.5;
 
         // Riduci l'impatto della strategia
-        double strategicValue = evaluateStrategicValue(state, playerIndex);
+        double strategicValue = evaluateStrategicValue(features, playerIndex);
         return 0.7 + (0.3 * strategicValue); // Valore base + contributo strategico ridotto
     }
 
-    private double evaluateStrategicValue(PentagoGameState state, int playerIndex) {
+    private double evaluateStrategicValue(PentagoFeatures features, int playerIndex) {
         double value = 0.0;
-        value += state.countAlignedPieces(playerIndex) * 0.1;
-        value += state.countCenterPieces(playerIndex) * 0.05;
-        value -= state.countAlignedPieces(1 - playerIndex) * 0.08;
-        value -= state.countCenterPieces(1 - playerIndex) * 0.04;
+        value += features.getAlignedPieces(playerIndex) * 0.1;
+        value += features.getCenterPieces(playerIndex) * 0.05;
+        value -= features.getAlignedPieces(1 - playerIndex) * 0.08;
+        value -= features.getCenterPieces(1 - playerIndex) * 0.04;
         return Math.max(0, Math.min(1, value)); // Normalizza tra 0 e 1
     }
 
+    @Override
+    public void evaluate(PentagoFeatureBatch batch, int playerIndex, double[] utilities) {
+        PentagoKernels.INSTANCE.balanced(batch, playerIndex, utilities);
+    }
+
     @Override
     public List<PentagoAction> suggestStrategicMoves(PentagoGameState state, int playerIndex) {
         List<PentagoAction> suggestedMoves = new ArrayList<>();
@@ -82,28 +86,36 @@ public class BalancedPentagoUtility implements UtilityStrategy<PentagoGameState,
     }
 
     private List<PentagoAction> findWinningMoves(PentagoGameState state, int playerIndex) {
-        return state.getAvailableActions(playerIndex).stream()
-                .filter(action -> {
-                    PentagoGameState stateCopy = state.deepCopy();
-                    PentagoGameState nextState = stateCopy.applyAction(action);
-                    return nextState.checkForWinner() == playerIndex;
-                })
-                .collect(Collectors.toList());
+        List<PentagoAction> winningMoves = new ArrayList<>();
+        PentagoGameState scratch = state.deepCopy();
+        for (PentagoAction action : state.getAvailableActions(playerIndex)) {
+            scratch.doAction(action);
+            if (scratch.checkForWinner() == playerIndex) {
+                winningMoves.add(action);
+            }
+            scratch.undoAction(action);
+        }
+        return winningMoves;
     }
 
     private List<PentagoAction> findBlockingMoves(PentagoGameState state, int playerIndex) {
         int opponentIndex = 1 - playerIndex;
         List<PentagoAction> blockingMoves = new ArrayList<>();
+        PentagoGameState scratch = state.deepCopy();
 
         for (PentagoAction action : state.getAvailableActions(playerIndex)) {
-            PentagoGameState stateCopy = state.deepCopy();
-            PentagoGameState nextState = stateCopy.applyAction(action);
-            boolean blocks = nextState.getAvailableActions(opponentIndex).stream()
-                    .noneMatch(opponentAction -> {
-                        PentagoGameState opponentStateCopy = nextState.deepCopy();
-                        PentagoGameState opponentNextState = opponentStateCopy.applyAction(opponentAction);
-                        return opponentNextState.checkForWinner() == opponentIndex;
-                    });
+            scratch.doAction(action);
+            boolean blocks = true;
+            for (PentagoAction opponentAction : scratch.getAvailableActions(opponentIndex)) {
+                scratch.doAction(opponentAction);
+                boolean opponentWins = scratch.checkForWinner() == opponentIndex;
+                scratch.undoAction(opponentAction);
+                if (opponentWins) {
+                    blocks = false;
+                    break;
+                }
+            }
+            scratch.undoAction(action);
 
             if (blocks) {
                 blockingMoves.add(action);
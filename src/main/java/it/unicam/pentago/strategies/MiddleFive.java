@@ -11,19 +11,11 @@ import java.util.List;
 public class MiddleFive extends PentagoStrategy {
     private final int[][] keyPositions = {{2,2}, {2,3}, {3,2}, {3,3}, {0,4}};
 
-    @Override
-    public double evaluateState(PentagoGameState state, int playerIndex) {
-        PentagoBoard board = state.getBoard();
-        int playerValue = playerIndex + 1;
-        int score = 0;
-
-        for (int[] pos : keyPositions) {
-            if (board.getCell(pos[0], pos[1]) == playerValue) {
-                score++;
-            }
-        }
+    private final long keyMask = maskOf(keyPositions);
 
-        return score / 5.0; // Normalize score
+    @Override
+    protected double evaluatePieces(long pieces) {
+        return Long.bitCount(pieces & keyMask) / 5.0; // Normalize score
     }
 
     @Override
@@ -33,14 +25,16 @@ public class MiddleFive extends PentagoStrategy {
 
         for (int[] pos : keyPositions) {
             if (isPositionEmpty(board, pos[0], pos[1])) {
-                moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
-                moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
+                moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
+                moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
             }
         }
 
-        // Suggest rotating the top-right quadrant
-        moves.add(new PentagoAction(0, 0, 1, true, playerIndex));
-        moves.add(new PentagoAction(0, 0, 1, false, playerIndex));
+        // Suggest rotating the top-right quadrant, placing in the corner if it is still empty
+        if (isPositionEmpty(board, 0, 0)) {
+            moves.add(PentagoAction.of(0, 0, 1, true, playerIndex));
+            moves.add(PentagoAction.of(0, 0, 1, false, playerIndex));
+        }
 
         if (moves.isEmpty()) {
             List<PentagoAction> allMoves = state.getAvailableActions(playerIndex);
@@ -11,19 +11,11 @@ import java.util.List;
 public class MonicasFive extends PentagoStrategy {
     private final int[][] keyPositions = {{0,2}, {0,3}, {2,0}, {3,0}, {2,5}};
 
-    @Override
-    public double evaluateState(PentagoGameState state, int playerIndex) {
-        PentagoBoard board = state.getBoard();
-        int playerValue = playerIndex + 1;
-        int score = 0;
+    private final long keyMask = maskOf(keyPositions);
 
-        for (int[] pos : keyPositions) {
-            if (board.getCell(pos[0], pos[1]) == playerValue) {
-                score++;
-            }
-        }
-
-        return score / 5.0; // Normalize score
+    @Override
+    protected double evaluatePieces(long pieces) {
+        return Long.bitCount(pieces & keyMask) / 5.0; // Normalize score
     }
 
     @Override
@@ -33,8 +25,8 @@ public class MonicasFive extends PentagoStrategy {
 
         for (int[] pos : keyPositions) {
             if (isPositionEmpty(board, pos[0], pos[1])) {
-                moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
-                moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
+                moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
+                moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
             }
         }
 
@@ -0,0 +1,145 @@
+package it.unicam.pentago.strategies;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoBoard;
+import it.unicam.pentago.models.PentagoGameState;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The features of many states stored as structure of arrays: one column per feature and per player,
+ * with the state index as the inner dimension. Strategies combine the columns in plain counted loops,
+ * which the JIT can unroll and vectorize.
+ * Instances are reused: {@link #clear} empties the batch while keeping the allocated columns.
+ * Instances are not thread-safe.
+ */
+public final class PentagoFeatureBatch {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final PentagoFeatures features = new PentagoFeatures();
+    private final PentagoGameState scratch = new PentagoGameState(new PentagoBoard(), 0);
+
+    private int size;
+    private int capacity;
+
+    // Columns indexed by player, then by state
+    int[] winner;
+    boolean[] tie;
+    int[] legalMoves;
+    long[][] pieces;
+    int[][] threats;
+    int[][] winPaths;
+    int[][] alignedPieces;
+    int[][] centerPieces;
+    double[][] positionalPotential;
+    int[][] criticalBlocks;
+    int[][] potentialBlocks;
+    double[][] rotationBenefit;
+    int[][] winningMoves;
+    double[] partialUtilities;
+
+    public PentagoFeatureBatch() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        winner = new int[newCapacity];
+        tie = new boolean[newCapacity];
+        legalMoves = new int[newCapacity];
+        pieces = new long[2][newCapacity];
+        threats = new int[2][newCapacity];
+        winPaths = new int[2][newCapacity];
+        alignedPieces = new int[2][newCapacity];
+        centerPieces = new int[2][newCapacity];
+        positionalPotential = new double[2][newCapacity];
+        criticalBlocks = new int[2][newCapacity];
+        potentialBlocks = new int[2][newCapacity];
+        rotationBenefit = new double[2][newCapacity];
+        winningMoves = new int[2][newCapacity];
+        partialUtilities = new double[newCapacity];
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity) return;
+        int newCapacity = Math.max(required, capacity * 2);
+        capacity = newCapacity;
+        winner = Arrays.copyOf(winner, newCapacity);
+        tie = Arrays.copyOf(tie, newCapacity);
+        legalMoves = Arrays.copyOf(legalMoves, newCapacity);
+        partialUtilities = new double[newCapacity];
+        for (int player = 0; player < 2; player++) {
+            pieces[player] = Arrays.copyOf(pieces[player], newCapacity);
+            threats[player] = Arrays.copyOf(threats[player], newCapacity);
+            winPaths[player] = Arrays.copyOf(winPaths[player], newCapacity);
+            alignedPieces[player] = Arrays.copyOf(alignedPieces[player], newCapacity);
+            centerPieces[player] = Arrays.copyOf(centerPieces[player], newCapacity);
+            positionalPotential[player] = Arrays.copyOf(positionalPotential[player], newCapacity);
+            criticalBlocks[player] = Arrays.copyOf(criticalBlocks[player], newCapacity);
+            potentialBlocks[player] = Arrays.copyOf(potentialBlocks[player], newCapacity);
+            rotationBenefit[player] = Arrays.copyOf(rotationBenefit[player], newCapacity);
+            winningMoves[player] = Arrays.copyOf(winningMoves[player], newCapacity);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends the features of a state.
+     */
+    public void add(PentagoGameState state) {
+        append(features.extract(state));
+    }
+
+    /**
+     * Appends the features of every state in the list.
+     */
+    public void addAll(List<? extends PentagoGameState> states) {
+        ensureCapacity(size + states.size());
+        for (PentagoGameState state : states) {
+            add(state);
+        }
+    }
+
+    /**
+     * Appends the features of the states reached by applying each action to the given state,
+     * which is not modified. The successors are played in place on a scratch state.
+     */
+    public void addChildren(PentagoGameState state, List<? extends PentagoAction> actions) {
+        ensureCapacity(size + actions.size());
+        scratch.getBoard().copyFrom(state.getBoard());
+        scratch.setCurrentPlayer(state.getCurrentPlayer());
+        for (PentagoAction action : actions) {
+            scratch.doAction(action);
+            add(scratch);
+            scratch.undoAction(action);
+        }
+    }
+
+    private void append(PentagoFeatures extracted) {
+        ensureCapacity(size + 1);
+        int i = size++;
+        winner[i] = extracted.getWinner();
+        tie[i] = extracted.isTie();
+        legalMoves[i] = extracted.getLegalMoves();
+        for (int player = 0; player < 2; player++) {
+            pieces[player][i] = extracted.getPieces(player);
+            threats[player][i] = extracted.getThreats(player);
+            winPaths[player][i] = extracted.getPotentialWinPaths(player);
+            alignedPieces[player][i] = extracted.getAlignedPieces(player);
+            centerPieces[player][i] = extracted.getCenterPieces(player);
+            positionalPotential[player][i] = extracted.getPositionalPotential(player);
+            criticalBlocks[player][i] = extracted.getCriticalBlocks(player);
+            potentialBlocks[player][i] = extracted.getPotentialBlocks(player);
+            rotationBenefit[player][i] = extracted.getRotationBenefit(player);
+            winningMoves[player][i] = extracted.getWinningMoves(player);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package it.unicam.pentago.strategies;
+
+import it.unicam.pentago.models.PentagoBoard;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPatterns;
+
+/**
+ * Every feature used by the Pentago utility strategies, extracted from a state in a single pass.
+ * Instances are meant to be reused: {@link #extract} overwrites the previous values and does not
+ * allocate. Instances are not thread-safe.
+ */
+public final class PentagoFeatures {
+    private static final long CENTER_4_MASK = mask(2, 3, 2, 3);
+    private static final long CENTER_16_MASK = mask(1, 4, 1, 4);
+    private static final long CORNERS_MASK = 1L | 1L << 5 | 1L << 30 | 1L << 35;
+
+    private final PentagoBoard scratch = new PentagoBoard();
+
+    private int winner;
+    private boolean tie;
+    private int legalMoves;
+    private final long[] pieces = new long[2];
+    private final int[] threats = new int[2];
+    private final int[] winPaths = new int[2];
+    private final int[] alignedPieces = new int[2];
+    private final int[] centerPieces = new int[2];
+    private final double[] positionalPotential = new double[2];
+    private final int[] criticalBlocks = new int[2];
+    private final int[] potentialBlocks = new int[2];
+    private final double[] rotationBenefit = new double[2];
+    private final int[] winningMoves = new int[2];
+
+    private static long mask(int fromRow, int toRow, int fromCol, int toCol) {
+        long mask = 0L;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                mask |= 1L << PentagoBoard.cellIndex(row, col);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Extracts the features of the given state into this record.
+     *
+     * @param state the state to evaluate, which is not modified
+     * @return this record
+     */
+    public PentagoFeatures extract(PentagoGameState state) {
+        PentagoBoard board = state.getBoard();
+        winner = state.checkForWinner();
+        tie = state.isTie();
+        long empty = board.getEmptyMask();
+        legalMoves = Long.bitCount(empty) * 8;
+
+        for (int player = 0; player < 2; player++) {
+            long own = board.getPlayerMask(player);
+            pieces[player] = own;
+            threats[player] = PentagoPatterns.countThreats(board, player, 4);
+            winPaths[player] = PentagoPatterns.countPotentialWinPaths(board, player);
+            alignedPieces[player] = PentagoPatterns.countAlignedPieces(board, player);
+            centerPieces[player] = Long.bitCount(own & CENTER_4_MASK);
+            positionalPotential[player] = Long.bitCount(own & CENTER_16_MASK)
+                    + Long.bitCount(own & CORNERS_MASK) * 0.5
+                    + PentagoPatterns.countNInARow(board, player, 2) * 0.2
+                    + PentagoPatterns.countNInARow(board, player, 3) * 0.5;
+            rotationBenefit[player] = 0;
+            winningMoves[player] = 0;
+        }
+        PentagoPatterns.countBlocks(board, criticalBlocks, potentialBlocks);
+
+        // Simulated rotations on the scratch board, whose line totals stay up to date
+        scratch.copyFrom(board);
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            for (int direction = 0; direction < 2; direction++) {
+                boolean clockwise = direction == 0;
+                scratch.rotateQuadrant(quadrant, clockwise);
+                // Rotations permute cells: placing and then rotating wins when the rotated cell completes
+                // a line of the rotated board and the opponent does not get five in a row as well
+                long rotatedEmpty = scratch.getEmptyMask();
+                for (int player = 0; player < 2; player++) {
+                    rotationBenefit[player] += Math.max(0, PentagoPatterns.countThreats(scratch, player, 4) - threats[player]);
+                    rotationBenefit[player] += Math.max(0, PentagoPatterns.countPotentialWinPaths(scratch, player) - winPaths[player]);
+                    if (!scratch.hasFiveInARow(1 - player)) {
+                        winningMoves[player] += Long.bitCount(
+                                PentagoBoard.winningPlacements(scratch.getPlayerMask(player), rotatedEmpty));
+                    }
+                }
+                scratch.rotateQuadrant(quadrant, !clockwise);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the winner as in {@link PentagoGameState#checkForWinner()}.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    public boolean isTie() {
+        return tie;
+    }
+
+    public int getLegalMoves() {
+        return legalMoves;
+    }
+
+    public long getPieces(int playerIndex) {
+        return pieces[playerIndex];
+    }
+
+    /**
+     * Returns the windows of 4 cells with 3 pieces of the player and one empty cell.
+     */
+    public int getThreats(int playerIndex) {
+        return threats[playerIndex];
+    }
+
+    public int getPotentialWinPaths(int playerIndex) {
+        return winPaths[playerIndex];
+    }
+
+    public int getAlignedPieces(int playerIndex) {
+        return alignedPieces[playerIndex];
+    }
+
+    /**
+     * Returns the pieces of the player on the 4 central cells.
+     */
+    public int getCenterPieces(int playerIndex) {
+        return centerPieces[playerIndex];
+    }
+
+    /**
+     * Returns the value of {@link PentagoGameState#evaluatePositionalPotential(int)}.
+     */
+    public double getPositionalPotential(int playerIndex) {
+        return positionalPotential[playerIndex];
+    }
+
+    /**
+     * Returns the empty cells blocking an immediate five of the given opponent.
+     */
+    public int getCriticalBlocks(int opponentIndex) {
+        return criticalBlocks[opponentIndex];
+    }
+
+    /**
+     * Returns the empty cells blocking a potential five of the given opponent.
+     */
+    public int getPotentialBlocks(int opponentIndex) {
+        return potentialBlocks[opponentIndex];
+    }
+
+    /**
+     * Returns the gain in threats and potential win paths of the player, summed over the 8 possible rotations.
+     */
+    public double getRotationBenefit(int playerIndex) {
+        return rotationBenefit[playerIndex];
+    }
+
+    /**
+     * Returns the number of actions of the player that win the game immediately.
+     */
+    public int getWinningMoves(int playerIndex) {
+        return winningMoves[playerIndex];
+    }
+}
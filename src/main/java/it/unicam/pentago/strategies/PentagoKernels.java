@@ -0,0 +1,54 @@
+package it.unicam.pentago.strategies;
+
+import java.util.Optional;
+
+/**
+ * The loops combining the columns of a {@link PentagoFeatureBatch} into utilities.
+ * The implementation is chosen once at class loading: the Vector API backend when it has been built
+ * (with {@code -Pvector}) and the {@code jdk.incubator.vector} module is in the boot layer
+ * (with {@code --add-modules jdk.incubator.vector}), the scalar one otherwise or when the system property
+ * {@code pentago.vector} is {@code false}.
+ * Every backend gives exactly the results of the single-state evaluations.
+ */
+abstract class PentagoKernels {
+    static final PentagoKernels INSTANCE = select();
+
+    private static PentagoKernels select() {
+        Optional<Module> vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector");
+        if (Boolean.parseBoolean(System.getProperty("pentago.vector", "true")) && vectorModule.isPresent()) {
+            try {
+                // Il modulo incubator non e' dichiarato in module-info, così la build normale non lo usa
+                PentagoKernels.class.getModule().addReads(vectorModule.get());
+                // Caricata per nome, così il backend scalare non dipende mai dal modulo incubator
+                return (PentagoKernels) Class.forName("it.unicam.pentago.strategies.VectorPentagoKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Vector API non disponibile, uso la valutazione scalare: " + e);
+            }
+        }
+        return new ScalarPentagoKernels();
+    }
+
+    /**
+     * Returns the name of the backend in use.
+     */
+    abstract String getName();
+
+    /**
+     * Computes the utilities of {@link AdvancedPentagoStrategy}.
+     */
+    abstract void advanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities);
+
+    /**
+     * Computes the utilities of {@link BalancedPentagoUtility}.
+     */
+    abstract void balanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities);
+
+    /**
+     * Completes the utilities of {@link StrategicPentagoUtility}.
+     *
+     * @param baseUtilities the utilities of the base strategy
+     * @param utilities     holds the best score of the opening strategies, receives the utilities
+     */
+    abstract void strategic(PentagoFeatureBatch batch, int playerIndex, double[] baseUtilities, double[] utilities);
+}
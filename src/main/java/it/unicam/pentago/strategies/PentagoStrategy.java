@@ -6,7 +6,22 @@ import java.util.*;
 public abstract class PentagoStrategy {
     protected static final int BOARD_SIZE = 6;
 
-    public abstract double evaluateState(PentagoGameState state, int playerIndex);
+    public double evaluateState(PentagoGameState state, int playerIndex) {
+        return evaluatePieces(state.getBoard().getPlayerMask(playerIndex));
+    }
+
+    /**
+     * Evaluates the state from features already extracted, see {@link PentagoFeatures}.
+     */
+    public double evaluateFeatures(PentagoFeatures features, int playerIndex) {
+        return evaluatePieces(features.getPieces(playerIndex));
+    }
+
+    /**
+     * Evaluates the pieces of a player, given as a bitboard (bit {@code row * 6 + col}).
+     */
+    protected abstract double evaluatePieces(long pieces);
+
     public abstract List<PentagoAction> suggestMoves(PentagoGameState state, int playerIndex);
 
     protected boolean isPositionEmpty(PentagoBoard board, int row, int col) {
@@ -16,4 +31,12 @@ public abstract class PentagoStrategy {
     protected int getNearestQuadrant(int row, int col) {
         return (row / 3) * 2 + (col / 3);
     }
-}
\ No newline at end of file
+
+    protected static long maskOf(int[][] positions) {
+        long mask = 0L;
+        for (int[] pos : positions) {
+            mask |= 1L << PentagoBoard.cellIndex(pos[0], pos[1]);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,66 @@
+package it.unicam.pentago.strategies;
+
+import com.lostrucos.jabtbg.core.UtilityStrategy;
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+
+import java.util.List;
+
+/**
+ * Base class of the Pentago utility strategies computed from {@link PentagoFeatures}.
+ * Single states are evaluated from one feature record, batches from the columns of a {@link PentagoFeatureBatch};
+ * both buffers are reused by each thread. Batches are combined by the Vector API backend when the
+ * {@code jdk.incubator.vector} module is available at runtime, by plain loops otherwise.
+ */
+public abstract class PentagoUtilityStrategy implements UtilityStrategy<PentagoGameState, PentagoAction> {
+    private final ThreadLocal<PentagoFeatures> features = ThreadLocal.withInitial(PentagoFeatures::new);
+    private final ThreadLocal<PentagoFeatureBatch> batch = ThreadLocal.withInitial(PentagoFeatureBatch::new);
+
+    /**
+     * Returns the name of the backend evaluating the batches, see {@link #evaluate(PentagoFeatureBatch, int, double[])}.
+     */
+    public static String getBatchBackendName() {
+        return PentagoKernels.INSTANCE.getName();
+    }
+
+    @Override
+    public double calculateUtility(PentagoGameState state, int playerIndex) {
+        return evaluate(features.get().extract(state), playerIndex);
+    }
+
+    @Override
+    public void calculateUtilities(List<? extends PentagoGameState> states, int playerIndex, double[] utilities) {
+        PentagoFeatureBatch stateBatch = batch.get();
+        stateBatch.clear();
+        stateBatch.addAll(states);
+        evaluate(stateBatch, playerIndex, utilities);
+    }
+
+    @Override
+    public void calculateChildUtilities(PentagoGameState state, List<? extends PentagoAction> actions,
+                                        int playerIndex, double[] utilities) {
+        PentagoFeatureBatch stateBatch = batch.get();
+        stateBatch.clear();
+        stateBatch.addChildren(state, actions);
+        evaluate(stateBatch, playerIndex, utilities);
+    }
+
+    /**
+     * Computes the utility of the player from features already extracted.
+     *
+     * @param features    the features of the state
+     * @param playerIndex the player
+     * @return the utility of the state for the player
+     */
+    public abstract double evaluate(PentagoFeatures features, int playerIndex);
+
+    /**
+     * Computes the utility of the player for every state of the batch. Must give the same results as
+     * {@link #evaluate(PentagoFeatures, int)}.
+     *
+     * @param batch       the features of the states
+     * @param playerIndex the player
+     * @param utilities   receives the utility of the i-th state of the batch at index i
+     */
+    public abstract void evaluate(PentagoFeatureBatch batch, int playerIndex, double[] utilities);
+}
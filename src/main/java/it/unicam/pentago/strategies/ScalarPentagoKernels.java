@@ -0,0 +1,109 @@
+package it.unicam.pentago.strategies;
+
+import static it.unicam.pentago.strategies.AdvancedPentagoStrategy.*;
+
+/**
+ * Plain counted loops over the batch columns, also used for the tail of the vectorized loops.
+ */
+class ScalarPentagoKernels extends PentagoKernels {
+
+    @Override
+    String getName() {
+        return "scalar";
+    }
+
+    @Override
+    void advanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities) {
+        advanced(batch, playerIndex, utilities, 0, batch.size());
+    }
+
+    @Override
+    void balanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities) {
+        balanced(batch, playerIndex, utilities, 0, batch.size());
+    }
+
+    @Override
+    void strategic(PentagoFeatureBatch batch, int playerIndex, double[] baseUtilities, double[] utilities) {
+        strategic(batch, playerIndex, baseUtilities, utilities, 0, batch.size());
+    }
+
+    static void advanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities, int from, int to) {
+        int opponentIndex = 1 - playerIndex;
+        int[] winner = batch.winner;
+        int[] playerThreats = batch.threats[playerIndex];
+        int[] opponentThreats = batch.threats[opponentIndex];
+        double[] playerPotential = batch.positionalPotential[playerIndex];
+        double[] opponentPotential = batch.positionalPotential[opponentIndex];
+        int[] playerWinPaths = batch.winPaths[playerIndex];
+        int[] opponentWinPaths = batch.winPaths[opponentIndex];
+        int[] criticalBlocks = batch.criticalBlocks[opponentIndex];
+        int[] potentialBlocks = batch.potentialBlocks[opponentIndex];
+        double[] playerRotationBenefit = batch.rotationBenefit[playerIndex];
+        double[] opponentRotationBenefit = batch.rotationBenefit[opponentIndex];
+
+        // Same formulas as the single-state evaluation, one column at a time
+        for (int i = from; i < to; i++) {
+            double immediateThreatsScore = (playerThreats[i] - opponentThreats[i] + 10) / 20.0;
+            double potentialScore = (playerPotential[i] - opponentPotential[i] + 10) / 20.0;
+            double winPathsScore = (playerWinPaths[i] - opponentWinPaths[i] + 10.0) / 20.0;
+            double longTermStrategyScore = (potentialScore + winPathsScore) / 2.0;
+            double blockingScore = (criticalBlocks[i] * 2 + potentialBlocks[i]) / 20.0;
+            double rotationEffectScore = (playerRotationBenefit[i] - opponentRotationBenefit[i] + 10) / 20.0;
+            utilities[i] = IMMEDIATE_THREAT_WEIGHT * immediateThreatsScore +
+                    LONG_TERM_STRATEGY_WEIGHT * longTermStrategyScore +
+                    BLOCKING_WEIGHT * blockingScore +
+                    ROTATION_EFFECT_WEIGHT * rotationEffectScore;
+        }
+        for (int i = from; i < to; i++) {
+            if (winner[i] != -1) {
+                utilities[i] = winner[i] == playerIndex ? 1.0 : 0.0;
+            }
+        }
+    }
+
+    static void balanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities, int from, int to) {
+        int[] playerAligned = batch.alignedPieces[playerIndex];
+        int[] playerCenter = batch.centerPieces[playerIndex];
+        int[] opponentAligned = batch.alignedPieces[1 - playerIndex];
+        int[] opponentCenter = batch.centerPieces[1 - playerIndex];
+        for (int i = from; i < to; i++) {
+            double value = 0.0;
+            value += playerAligned[i] * 0.1;
+            value += playerCenter[i] * 0.05;
+            value -= opponentAligned[i] * 0.08;
+            value -= opponentCenter[i] * 0.04;
+            utilities[i] = 0.7 + (0.3 * Math.max(0, Math.min(1, value)));
+        }
+
+        int[] winner = batch.winner;
+        boolean[] tie = batch.tie;
+        for (int i = from; i < to; i++) {
+            if (winner[i] != -1) {
+                utilities[i] = winner[i] == playerIndex ? 1.0 : 0.0;
+            } else if (tie[i]) {
+                utilities[i] = 0.5;
+            }
+        }
+    }
+
+    static void strategic(PentagoFeatureBatch batch, int playerIndex, double[] baseUtilities, double[] utilities,
+                          int from, int to) {
+        for (int i = from; i < to; i++) {
+            utilities[i] = 0.7 * baseUtilities[i] + 0.3 * utilities[i];
+        }
+
+        int[] winner = batch.winner;
+        int[] legalMoves = batch.legalMoves;
+        int[] playerWinningMoves = batch.winningMoves[playerIndex];
+        int[] opponentWinningMoves = batch.winningMoves[1 - playerIndex];
+        for (int i = from; i < to; i++) {
+            if (winner[i] != -1) {
+                utilities[i] = winner[i] == playerIndex ? 1.0 : 0.0;
+            } else if (legalMoves[i] > 0) {
+                double immediateThreats = (double) playerWinningMoves[i] / legalMoves[i]
+                        - (double) opponentWinningMoves[i] / legalMoves[i];
+                if (immediateThreats > 0) utilities[i] = 0.9 + (immediateThreats * 0.1);
+            }
+        }
+    }
+}
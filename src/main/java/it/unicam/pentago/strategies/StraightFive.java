@@ -11,19 +11,11 @@ import java.util.List;
 public class StraightFive extends PentagoStrategy {
     private final int targetRow = 2;
 
-    @Override
-    public double evaluateState(PentagoGameState state, int playerIndex) {
-        PentagoBoard board = state.getBoard();
-        int playerValue = playerIndex + 1;
-        int score = 0;
-
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            if (board.getCell(targetRow, col) == playerValue) {
-                score++;
-            }
-        }
+    private final long rowMask = 0b111111L << (targetRow * BOARD_SIZE);
 
-        return score / 5.0; // Normalize score (5 is needed for a win)
+    @Override
+    protected double evaluatePieces(long pieces) {
+        return Long.bitCount(pieces & rowMask) / 5.0; // Normalize score (5 is needed for a win)
     }
 
     @Override
@@ -33,15 +25,17 @@ public class StraightFive extends PentagoStrategy {
 
         for (int col = 0; col < BOARD_SIZE; col++) {
             if (isPositionEmpty(board, targetRow, col)) {
-                moves.add(new PentagoAction(targetRow, col, getNearestQuadrant(targetRow, col), true, playerIndex));
-                moves.add(new PentagoAction(targetRow, col, getNearestQuadrant(targetRow, col), false, playerIndex));
+                moves.add(PentagoAction.of(targetRow, col, getNearestQuadrant(targetRow, col), true, playerIndex));
+                moves.add(PentagoAction.of(targetRow, col, getNearestQuadrant(targetRow, col), false, playerIndex));
             }
         }
 
-        // Suggest rotating the quadrants to align pieces
-        for (int q = 0; q < 4; q++) {
-            moves.add(new PentagoAction(0, 0, q, true, playerIndex));
-            moves.add(new PentagoAction(0, 0, q, false, playerIndex));
+        // Suggest rotating the quadrants to align pieces, placing in the corner if it is still empty
+        if (isPositionEmpty(board, 0, 0)) {
+            for (int q = 0; q < 4; q++) {
+                moves.add(PentagoAction.of(0, 0, q, true, playerIndex));
+                moves.add(PentagoAction.of(0, 0, q, false, playerIndex));
+            }
         }
 
         if (moves.isEmpty()) {
@@ -5,9 +5,8 @@ import it.unicam.pentago.models.PentagoGameState;
 import com.lostrucos.jabtbg.core.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class StrategicPentagoUtility implements UtilityStrategy<PentagoGameState, PentagoAction> {
+public class StrategicPentagoUtility extends PentagoUtilityStrategy {
     private List<PentagoStrategy> strategies;
     private AdvancedPentagoStrategy baseStrategy;
 
@@ -22,45 +21,55 @@ public class StrategicPentagoUtility implements UtilityStrategy<PentagoGameState
     }
 
     @Override
-    public double calculateUtility(PentagoGameState state, int playerIndex) {
+    public double evaluate(PentagoFeatures features, int playerIndex) {
         // Check for immediate win or loss
-        int winner = state.checkForWinner();
+        int winner = features.getWinner();
         if (winner == playerIndex) return 1.0;
         if (winner != -1) return 0.0;
 
-        double immediateThreats = evaluateImmediateThreats(state, playerIndex);
+        double immediateThreats = evaluateImmediateThreats(features, playerIndex);
         if (immediateThreats > 0) return 0.9 + (immediateThreats * 0.1);
 
-        double baseUtility = baseStrategy.calculateUtility(state, playerIndex);
-        double strategicUtility = evaluateStrategies(state, playerIndex);
+        double baseUtility = baseStrategy.evaluate(features, playerIndex);
+        double strategicUtility = evaluateStrategies(features, playerIndex);
 
         return 0.7 * baseUtility + 0.3 * strategicUtility;
     }
 
-    private double evaluateImmediateThreats(PentagoGameState state, int playerIndex) {
-        int opponentIndex = 1 - playerIndex;
-        double playerThreats = countImmediateThreats(state, playerIndex);
-        double opponentThreats = countImmediateThreats(state, opponentIndex);
+    private double evaluateImmediateThreats(PentagoFeatures features, int playerIndex) {
+        int legalMoves = features.getLegalMoves();
+        if (legalMoves == 0) return 0;
+        // Frazione delle mosse che vincono subito, per il giocatore e per l'avversario
+        double playerThreats = (double) features.getWinningMoves(playerIndex) / legalMoves;
+        double opponentThreats = (double) features.getWinningMoves(1 - playerIndex) / legalMoves;
 
         return playerThreats - opponentThreats;
     }
 
-    private double countImmediateThreats(PentagoGameState state, int playerIndex) {
-        double threats = 0;
-        for (PentagoAction action : state.getAvailableActions(playerIndex)) {
-            PentagoGameState nextState = state.applyAction(action);
-            if (nextState.checkForWinner() == playerIndex) {
-                threats += 1;
-            }
+    private double evaluateStrategies(PentagoFeatures features, int playerIndex) {
+        double best = 0.0;
+        for (PentagoStrategy strategy : strategies) {
+            best = Math.max(best, strategy.evaluateFeatures(features, playerIndex));
         }
-        return threats / state.getAvailableActions(playerIndex).size();
+        return best;
     }
 
-    private double evaluateStrategies(PentagoGameState state, int playerIndex) {
-        return strategies.stream()
-                .mapToDouble(strategy -> strategy.evaluateState(state, playerIndex))
-                .max()
-                .orElse(0.0);
+    @Override
+    public void evaluate(PentagoFeatureBatch batch, int playerIndex, double[] utilities) {
+        int size = batch.size();
+        double[] baseUtilities = batch.partialUtilities;
+        baseStrategy.evaluate(batch, playerIndex, baseUtilities);
+
+        long[] pieces = batch.pieces[playerIndex];
+        for (int i = 0; i < size; i++) {
+            utilities[i] = 0.0;
+        }
+        for (PentagoStrategy strategy : strategies) {
+            for (int i = 0; i < size; i++) {
+                utilities[i] = Math.max(utilities[i], strategy.evaluatePieces(pieces[i]));
+            }
+        }
+        PentagoKernels.INSTANCE.strategic(batch, playerIndex, baseUtilities, utilities);
     }
 
     @Override
@@ -104,28 +113,36 @@ public class StrategicPentagoUtility implements UtilityStrategy<PentagoGameState
     }
 
     private List<PentagoAction> findWinningMoves(PentagoGameState state, int playerIndex) {
-        return state.getAvailableActions(playerIndex).stream()
-                .filter(action -> {
-                    PentagoGameState stateCopy = state.deepCopy();
-                    PentagoGameState nextState = stateCopy.applyAction(action);
-                    return nextState.checkForWinner() == playerIndex;
-                })
-                .collect(Collectors.toList());
+        List<PentagoAction> winningMoves = new ArrayList<>();
+        PentagoGameState scratch = state.deepCopy();
+        for (PentagoAction action : state.getAvailableActions(playerIndex)) {
+            scratch.doAction(action);
+            if (scratch.checkForWinner() == playerIndex) {
+                winningMoves.add(action);
+            }
+            scratch.undoAction(action);
+        }
+        return winningMoves;
     }
 
     private List<PentagoAction> findBlockingMoves(PentagoGameState state, int playerIndex) {
         int opponentIndex = 1 - playerIndex;
         List<PentagoAction> blockingMoves = new ArrayList<>();
+        PentagoGameState scratch = state.deepCopy();
 
         for (PentagoAction action : state.getAvailableActions(playerIndex)) {
-            PentagoGameState stateCopy = state.deepCopy();
-            PentagoGameState nextState = stateCopy.applyAction(action);
-            boolean blocks = nextState.getAvailableActions(opponentIndex).stream()
-                    .noneMatch(opponentAction -> {
-                        PentagoGameState opponentStateCopy = nextState.deepCopy();
-                        PentagoGameState opponentNextState = opponentStateCopy.applyAction(opponentAction);
-                        return opponentNextState.checkForWinner() == opponentIndex;
-                    });
+            scratch.doAction(action);
+            boolean blocks = true;
+            for (PentagoAction opponentAction : scratch.getAvailableActions(opponentIndex)) {
+                scratch.doAction(opponentAction);
+                boolean opponentWins = scratch.checkForWinner() == opponentIndex;
+                scratch.undoAction(opponentAction);
+                if (opponentWins) {
+                    blocks = false;
+                    break;
+                }
+            }
+            scratch.undoAction(action);
 
             if (blocks) {
                 blockingMoves.add(action);
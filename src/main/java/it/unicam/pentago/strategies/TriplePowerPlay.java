@@ -12,24 +12,19 @@ public class TriplePowerPlay extends PentagoStrategy {
     private final int[][] keyPositions = {{1,1}, {1,4}, {4,1}, {4,4}};
     private final int[][] centerPositions = {{2,2}, {2,3}, {3,2}, {3,3}};
 
+    private final long keyMask = maskOf(keyPositions);
+    private final long centerMask = maskOf(centerPositions);
+
     @Override
-    public double evaluateState(PentagoGameState state, int playerIndex) {
-        PentagoBoard board = state.getBoard();
-        int playerValue = playerIndex + 1;
+    protected double evaluatePieces(long pieces) {
+        // Somma un punto alla volta come il conteggio cella per cella, così il risultato resta identico
         double score = 0;
-
-        for (int[] pos : keyPositions) {
-            if (board.getCell(pos[0], pos[1]) == playerValue) {
-                score += 0.2;
-            }
+        for (int count = Long.bitCount(pieces & keyMask); count > 0; count--) {
+            score += 0.2;
         }
-
-        for (int[] pos : centerPositions) {
-            if (board.getCell(pos[0], pos[1]) == playerValue) {
-                score += 0.05;
-            }
+        for (int count = Long.bitCount(pieces & centerMask); count > 0; count--) {
+            score += 0.05;
         }
-
         return score; // Max score is 1.0
     }
 
@@ -41,8 +36,8 @@ public class TriplePowerPlay extends PentagoStrategy {
         // Prioritize key positions
         for (int[] pos : keyPositions) {
             if (isPositionEmpty(board, pos[0], pos[1])) {
-                moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
-                moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
+                moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
+                moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
             }
         }
 
@@ -50,16 +45,18 @@ public class TriplePowerPlay extends PentagoStrategy {
         if (moves.isEmpty()) {
             for (int[] pos : centerPositions) {
                 if (isPositionEmpty(board, pos[0], pos[1])) {
-                    moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
-                    moves.add(new PentagoAction(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
+                    moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), true, playerIndex));
+                    moves.add(PentagoAction.of(pos[0], pos[1], getNearestQuadrant(pos[0], pos[1]), false, playerIndex));
                 }
             }
         }
 
-        // Suggest strategic rotations
-        for (int quadrant = 0; quadrant < 4; quadrant++) {
-            moves.add(new PentagoAction(0, 0, quadrant, true, playerIndex));
-            moves.add(new PentagoAction(0, 0, quadrant, false, playerIndex));
+        // Suggest strategic rotations, placing in the corner if it is still empty
+        if (isPositionEmpty(board, 0, 0)) {
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                moves.add(PentagoAction.of(0, 0, quadrant, true, playerIndex));
+                moves.add(PentagoAction.of(0, 0, quadrant, false, playerIndex));
+            }
         }
 
         if (moves.isEmpty()) {
@@ -0,0 +1,108 @@
+package it.unicam.pentago.strategies;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static it.unicam.pentago.strategies.AdvancedPentagoStrategy.*;
+
+/**
+ * Evaluates lanes of positions with the Vector API. Integer columns are loaded with as many lanes as the
+ * preferred double species and converted; operations follow the order of the scalar formulas, so the
+ * results are identical. The remaining tail is evaluated by {@link ScalarPentagoKernels}.
+ * Loaded by name from {@link PentagoKernels} only when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorPentagoKernels extends PentagoKernels {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+
+    @Override
+    String getName() {
+        return "vector (" + DOUBLES.length() + " lanes)";
+    }
+
+    private static DoubleVector load(int[] column, int i) {
+        return (DoubleVector) IntVector.fromArray(INTS, column, i).convertShape(VectorOperators.I2D, DOUBLES, 0);
+    }
+
+    private static DoubleVector load(double[] column, int i) {
+        return DoubleVector.fromArray(DOUBLES, column, i);
+    }
+
+    /**
+     * Replaces the utilities of the decided games with 1 for a win of the player and 0 for a loss.
+     */
+    private static DoubleVector applyWinner(DoubleVector utilities, int[] winner, int i, int playerIndex) {
+        IntVector winners = IntVector.fromArray(INTS, winner, i);
+        VectorMask<Double> decided = winners.compare(VectorOperators.NE, -1).cast(DOUBLES);
+        VectorMask<Double> won = winners.compare(VectorOperators.EQ, playerIndex).cast(DOUBLES);
+        return utilities.blend(0.0, decided).blend(1.0, won);
+    }
+
+    @Override
+    void advanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities) {
+        int opponentIndex = 1 - playerIndex;
+        int size = batch.size();
+        int upperBound = DOUBLES.loopBound(size);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLES.length()) {
+            DoubleVector immediateThreatsScore = load(batch.threats[playerIndex], i)
+                    .sub(load(batch.threats[opponentIndex], i)).add(10).div(20.0);
+            DoubleVector potentialScore = load(batch.positionalPotential[playerIndex], i)
+                    .sub(load(batch.positionalPotential[opponentIndex], i)).add(10).div(20.0);
+            DoubleVector winPathsScore = load(batch.winPaths[playerIndex], i)
+                    .sub(load(batch.winPaths[opponentIndex], i)).add(10.0).div(20.0);
+            DoubleVector longTermStrategyScore = potentialScore.add(winPathsScore).div(2.0);
+            DoubleVector blockingScore = load(batch.criticalBlocks[opponentIndex], i).mul(2)
+                    .add(load(batch.potentialBlocks[opponentIndex], i)).div(20.0);
+            DoubleVector rotationEffectScore = load(batch.rotationBenefit[playerIndex], i)
+                    .sub(load(batch.rotationBenefit[opponentIndex], i)).add(10).div(20.0);
+            DoubleVector utility = immediateThreatsScore.mul(IMMEDIATE_THREAT_WEIGHT)
+                    .add(longTermStrategyScore.mul(LONG_TERM_STRATEGY_WEIGHT))
+                    .add(blockingScore.mul(BLOCKING_WEIGHT))
+                    .add(rotationEffectScore.mul(ROTATION_EFFECT_WEIGHT));
+            applyWinner(utility, batch.winner, i, playerIndex).intoArray(utilities, i);
+        }
+        ScalarPentagoKernels.advanced(batch, playerIndex, utilities, i, size);
+    }
+
+    @Override
+    void balanced(PentagoFeatureBatch batch, int playerIndex, double[] utilities) {
+        int opponentIndex = 1 - playerIndex;
+        int size = batch.size();
+        int upperBound = DOUBLES.loopBound(size);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLES.length()) {
+            DoubleVector value = load(batch.alignedPieces[playerIndex], i).mul(0.1)
+                    .add(load(batch.centerPieces[playerIndex], i).mul(0.05))
+                    .sub(load(batch.alignedPieces[opponentIndex], i).mul(0.08))
+                    .sub(load(batch.centerPieces[opponentIndex], i).mul(0.04));
+            DoubleVector utility = value.min(1.0).max(0.0).mul(0.3).add(0.7)
+                    .blend(0.5, VectorMask.fromArray(DOUBLES, batch.tie, i));
+            applyWinner(utility, batch.winner, i, playerIndex).intoArray(utilities, i);
+        }
+        ScalarPentagoKernels.balanced(batch, playerIndex, utilities, i, size);
+    }
+
+    @Override
+    void strategic(PentagoFeatureBatch batch, int playerIndex, double[] baseUtilities, double[] utilities) {
+        int size = batch.size();
+        int upperBound = DOUBLES.loopBound(size);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLES.length()) {
+            DoubleVector utility = load(baseUtilities, i).mul(0.7).add(load(utilities, i).mul(0.3));
+            DoubleVector legalMoves = load(batch.legalMoves, i);
+            DoubleVector immediateThreats = load(batch.winningMoves[playerIndex], i).div(legalMoves)
+                    .sub(load(batch.winningMoves[1 - playerIndex], i).div(legalMoves));
+            // Senza mosse legali la differenza è NaN e il confronto è falso, come nel caso scalare
+            VectorMask<Double> threatening = immediateThreats.compare(VectorOperators.GT, 0.0);
+            utility = utility.blend(immediateThreats.mul(0.1).add(0.9), threatening);
+            applyWinner(utility, batch.winner, i, playerIndex).intoArray(utilities, i);
+        }
+        ScalarPentagoKernels.strategic(batch, playerIndex, baseUtilities, utilities, i, size);
+    }
+}
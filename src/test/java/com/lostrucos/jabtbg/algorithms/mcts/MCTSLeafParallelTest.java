@@ -0,0 +1,34 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSLeafParallelTest {
+
+    @Test
+    void everyPlayoutCountsAsOneVisit() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int position = 0; position < 5; position++) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 20);
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(2000)
+                    .parallelMode(MCTSAlgorithm.ParallelMode.LEAF)
+                    .threads(4)
+                    .build();
+            PentagoSearches.chooseLegalAction(mcts, state);
+
+            // Ogni nodo espanso riceve una simulazione per thread
+            MCTSNode<PentagoGameState, PentagoAction> root = mcts.getRootNode();
+            assertEquals(2000, root.getVisitCount());
+            for (MCTSNode<PentagoGameState, PentagoAction> child : root.getChildNodes().values()) {
+                assertEquals(0, child.getVisitCount() % 4, child.toString());
+            }
+            mcts.reset();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSNodeStoreTest {
+
+    @Test
+    void linksStayConsistentAcrossChunks() {
+        PentagoGameState state = PentagoPositions.randomPosition(new SplittableRandom(18), 32);
+        MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(6000).build();
+        PentagoSearches.chooseLegalAction(mcts, state);
+
+        MCTSNode<PentagoGameState, PentagoAction> root = mcts.getRootNode();
+        assertEquals(6000, root.getVisitCount());
+        assertNull(root.getParentNode());
+        List<MCTSNode<PentagoGameState, PentagoAction>> nodes = PentagoSearches.descendants(root);
+        assertTrue(nodes.size() > MCTSNodeStore.CHUNK_SIZE, "Only " + nodes.size() + " nodes");
+        assertChildrenLinked(root);
+        for (MCTSNode<PentagoGameState, PentagoAction> node : nodes) {
+            assertChildrenLinked(node);
+        }
+    }
+
+    private static void assertChildrenLinked(MCTSNode<PentagoGameState, PentagoAction> node) {
+        PentagoGameState state = node.getState();
+        for (MCTSNode<PentagoGameState, PentagoAction> child : node.getChildNodes().values()) {
+            assertEquals(node, child.getParentNode());
+            assertSame(child.getAction(), node.getChild(child.getAction()).getAction());
+            assertEquals(state.applyAction(child.getAction()), child.getState());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSProgressiveWideningTest {
+
+    @Test
+    void childrenGrowWithTheVisits() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int position = 0; position < 3; position++) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 20);
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(2000)
+                    .progressiveWidening(1, 0.5)
+                    .build();
+            PentagoSearches.chooseLegalAction(mcts, state);
+
+            MCTSNode<PentagoGameState, PentagoAction> root = mcts.getRootNode();
+            assertEquals(2000, root.getVisitCount());
+            assertTrue(root.getChildNodes().size() < state.getDistinctActions(state.getCurrentPlayer()).size());
+            assertWidened(root);
+            for (MCTSNode<PentagoGameState, PentagoAction> node : PentagoSearches.descendants(root)) {
+                assertWidened(node);
+            }
+        }
+    }
+
+    // Un figlio si aggiunge solo se i figli sono meno di max(1, sqrt(visite)), e le visite non diminuiscono
+    private static void assertWidened(MCTSNode<PentagoGameState, PentagoAction> node) {
+        double allowedChildren = Math.max(1, Math.sqrt(node.getVisitCount()));
+        assertTrue(node.getChildNodes().size() < allowedChildren + 1, node.toString());
+    }
+}
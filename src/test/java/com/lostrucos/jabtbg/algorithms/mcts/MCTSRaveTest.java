@@ -0,0 +1,38 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSRaveTest {
+
+    @Test
+    void raveKeepsTheTreeStatistics() {
+        SplittableRandom random = new SplittableRandom(24);
+        for (MCTSAlgorithm.ParallelMode parallelMode : MCTSAlgorithm.ParallelMode.values()) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 20);
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(2000)
+                    .rave(300)
+                    .parallelMode(parallelMode)
+                    .threads(4)
+                    .build();
+            PentagoSearches.chooseLegalAction(mcts, state);
+
+            // AMAF cambia solo la selezione: visite e ricompense restano quelle delle simulazioni
+            int visits = 0;
+            for (MCTSNode<PentagoGameState, PentagoAction> root : mcts.getRootNodes()) {
+                visits += root.getVisitCount();
+                for (MCTSNode<PentagoGameState, PentagoAction> node : PentagoSearches.descendants(root)) {
+                    assertTrue(node.getTotalReward() >= 0 && node.getTotalReward() <= node.getVisitCount(), node.toString());
+                }
+            }
+            assertEquals(2000, visits, parallelMode.toString());
+            mcts.reset();
+        }
+    }
+}
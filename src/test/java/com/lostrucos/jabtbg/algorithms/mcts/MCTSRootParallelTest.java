@@ -0,0 +1,37 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSRootParallelTest {
+
+    @Test
+    void workersShareTheIterationBudget() {
+        SplittableRandom random = new SplittableRandom(15);
+        for (int position = 0; position < 5; position++) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 20);
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(2000)
+                    .parallelMode(MCTSAlgorithm.ParallelMode.ROOT)
+                    .threads(4)
+                    .build();
+            PentagoSearches.chooseLegalAction(mcts, state);
+
+            List<MCTSNode<PentagoGameState, PentagoAction>> roots = mcts.getRootNodes();
+            assertEquals(4, roots.size());
+            int visits = 0;
+            for (MCTSNode<PentagoGameState, PentagoAction> root : roots) {
+                assertEquals(state, root.getState());
+                visits += root.getVisitCount();
+            }
+            assertEquals(2000, visits);
+            mcts.reset();
+        }
+    }
+}
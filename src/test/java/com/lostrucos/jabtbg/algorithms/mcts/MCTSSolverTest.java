@@ -0,0 +1,81 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import com.lostrucos.jabtbg.core.UtilityStrategy;
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPlayoutEngine;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSSolverTest {
+    private static final int EMPTY_CELLS = 5;
+
+    private final Map<Long, Integer> values = new HashMap<>();
+
+    @Test
+    void proofsMatchNegamax() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int position = 0; position < 20; position++) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, EMPTY_CELLS);
+
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(100000)
+                    .playoutEngine(new PentagoPlayoutEngine(PentagoPlayoutEngine.RolloutPolicy.UNIFORM))
+                    .solver(true)
+                    .build();
+            mcts.setUtilityStrategy(new WinLossUtility());
+            PentagoAction action = mcts.chooseAction(state.deepCopy());
+
+            int value = negamax(state);
+            MCTSNode<PentagoGameState, PentagoAction> root = mcts.getRootNode();
+            assertTrue(root.isProven(), "Root not proven:\n" + state);
+            // La radice e' dimostrata dal punto di vista di chi ha mosso prima
+            assertEquals(value, 1 - 2 * root.getProvenReward());
+            assertEquals(value, -negamax(state.applyAction(action)), "Suboptimal " + action + " in\n" + state);
+            for (Map.Entry<PentagoAction, MCTSNode<PentagoGameState, PentagoAction>> child : root.getChildNodes().entrySet()) {
+                if (child.getValue().isProven()) {
+                    assertEquals(-negamax(state.applyAction(child.getKey())), 2 * child.getValue().getProvenReward() - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns 1 if the player to move wins, 0 for a draw and -1 for a loss.
+     */
+    private int negamax(PentagoGameState state) {
+        if (state.isTerminalNode()) {
+            if (state.isTie()) return 0;
+            return state.checkForWinner() == state.getCurrentPlayer() ? 1 : -1;
+        }
+        Integer cached = values.get(state.stateKey());
+        if (cached != null) return cached;
+        int best = -1;
+        for (PentagoAction action : state.getDistinctActions(state.getCurrentPlayer())) {
+            best = Math.max(best, -negamax(state.applyAction(action)));
+            if (best == 1) break;
+        }
+        values.put(state.stateKey(), best);
+        return best;
+    }
+
+    private static final class WinLossUtility implements UtilityStrategy<PentagoGameState, PentagoAction> {
+        @Override
+        public double calculateUtility(PentagoGameState state, int playerIndex) {
+            int winner = state.checkForWinner();
+            if (winner == -1) return 0.5;
+            return winner == playerIndex ? 1.0 : 0.0;
+        }
+
+        @Override
+        public List<PentagoAction> suggestStrategicMoves(PentagoGameState state, int currentPlayer) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSStateCacheTest {
+
+    @Test
+    void statesAreRebuiltFromTheActions() {
+        SplittableRandom random = new SplittableRandom(19);
+        for (int stateCacheVisits : new int[]{0, 4, Integer.MAX_VALUE}) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 20);
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(3000)
+                    .stateCacheVisits(stateCacheVisits)
+                    .build();
+            PentagoSearches.chooseLegalAction(mcts, state);
+
+            MCTSNode<PentagoGameState, PentagoAction> root = mcts.getRootNode();
+            assertEquals(3000, root.getVisitCount());
+            assertEquals(state, root.getState());
+            for (MCTSNode<PentagoGameState, PentagoAction> node : PentagoSearches.descendants(root)) {
+                PentagoGameState parentState = node.getParentNode().getState();
+                assertEquals(parentState.applyAction(node.getAction()), node.getState(), "Visits to keep a state: " + stateCacheVisits);
+            }
+        }
+    }
+}
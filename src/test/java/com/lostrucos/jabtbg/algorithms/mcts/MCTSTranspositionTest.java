@@ -0,0 +1,56 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSTranspositionTest {
+
+    @Test
+    void nodesOfTheSamePositionShareTheChildren() {
+        MCTSAlgorithm<PickGame.Pick, PickGame.State> mcts = MCTSAlgorithm.<PickGame.Pick, PickGame.State>builder()
+                .iterations(5000)
+                .transpositions(true)
+                .build();
+        mcts.setUtilityStrategy(new PickGame.Utility());
+        PickGame.Pick action = mcts.chooseAction(PickGame.State.START);
+        assertTrue(PickGame.State.START.getAvailableActions(0).contains(action));
+
+        MCTSNode<PickGame.State, PickGame.Pick> root = mcts.getRootNode();
+        assertEquals(5000, root.getVisitCount());
+        Map<PickGame.State, MCTSNode<PickGame.State, PickGame.Pick>> firstNodes = new HashMap<>();
+        Set<MCTSNode<PickGame.State, PickGame.Pick>> nodes = new HashSet<>(PentagoSearches.descendants(root));
+        int transpositions = 0;
+        for (MCTSNode<PickGame.State, PickGame.Pick> node : nodes) {
+            assertEquals(node.getParentNode().getState().applyAction(node.getAction()), node.getState());
+            MCTSNode<PickGame.State, PickGame.Pick> first = firstNodes.putIfAbsent(node.getState(), node);
+            if (first != null) {
+                transpositions++;
+                assertEquals(first.getChildNodes(), node.getChildNodes(), "Children of " + node.getState());
+            }
+        }
+        assertTrue(transpositions > 0);
+    }
+
+    @Test
+    void searchWithTranspositionsUsesTheBudget() {
+        SplittableRandom random = new SplittableRandom(20);
+        for (int position = 0; position < 5; position++) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 12);
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(3000)
+                    .transpositions(true)
+                    .build();
+            PentagoSearches.chooseLegalAction(mcts, state);
+            assertEquals(3000, mcts.getRootNode().getVisitCount());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCTSTreeParallelTest {
+
+    @Test
+    void threadsShareTheIterationBudgetAndReleaseVirtualLoss() {
+        SplittableRandom random = new SplittableRandom(16);
+        for (int position = 0; position < 5; position++) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 20);
+            MCTSAlgorithm<PentagoAction, PentagoGameState> mcts = PentagoSearches.builder(2000)
+                    .parallelMode(MCTSAlgorithm.ParallelMode.TREE)
+                    .threads(4)
+                    .build();
+            PentagoSearches.chooseLegalAction(mcts, state);
+
+            MCTSNode<PentagoGameState, PentagoAction> root = mcts.getRootNode();
+            assertEquals(2000, root.getVisitCount());
+            assertStatisticsConsistent(root);
+            for (MCTSNode<PentagoGameState, PentagoAction> node : PentagoSearches.descendants(root)) {
+                assertStatisticsConsistent(node);
+            }
+            mcts.reset();
+        }
+    }
+
+    // Senza virtual loss residua ogni nodo ha almeno le visite dei figli e ricompense tra 0 e 1 per visita
+    private static void assertStatisticsConsistent(MCTSNode<PentagoGameState, PentagoAction> node) {
+        int childVisits = 0;
+        for (MCTSNode<PentagoGameState, PentagoAction> child : node.getChildNodes().values()) {
+            childVisits += child.getVisitCount();
+        }
+        assertTrue(node.getVisitCount() >= childVisits, node.toString());
+        assertTrue(node.getTotalReward() >= 0 && node.getTotalReward() <= node.getVisitCount(), node.toString());
+    }
+}
@@ -0,0 +1,58 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import com.lostrucos.jabtbg.core.Action;
+import com.lostrucos.jabtbg.core.GameState;
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.strategies.AdvancedPentagoStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Searches on Pentago positions shared by the MCTS tests.
+ */
+final class PentagoSearches {
+
+    private PentagoSearches() {
+    }
+
+    static MCTSAlgorithm.Builder<PentagoAction, PentagoGameState> builder(int iterations) {
+        return MCTSAlgorithm.<PentagoAction, PentagoGameState>builder().iterations(iterations);
+    }
+
+    /**
+     * Searches a copy of the state and checks that the chosen action is legal.
+     */
+    static PentagoAction chooseLegalAction(MCTSAlgorithm<PentagoAction, PentagoGameState> mcts, PentagoGameState state) {
+        mcts.setUtilityStrategy(new ExpandAllStrategy());
+        PentagoAction action = mcts.chooseAction(state.deepCopy());
+        assertTrue(state.getAvailableActions(state.getCurrentPlayer()).contains(action),
+                "Illegal action " + action + " in\n" + state);
+        return action;
+    }
+
+    /**
+     * Returns the nodes below the given one in depth-first order, once for every path reaching them.
+     */
+    static <T extends GameState<E>, E extends Action> List<MCTSNode<T, E>> descendants(MCTSNode<T, E> node) {
+        List<MCTSNode<T, E>> descendants = new ArrayList<>();
+        for (MCTSNode<T, E> child : node.getChildNodes().values()) {
+            descendants.add(child);
+            descendants.addAll(descendants(child));
+        }
+        return descendants;
+    }
+
+    /**
+     * Suggests all the distinct actions, so that every node of the search can be expanded.
+     */
+    static final class ExpandAllStrategy extends AdvancedPentagoStrategy {
+        @Override
+        public List<PentagoAction> suggestStrategicMoves(PentagoGameState state, int currentPlayer) {
+            return state.getDistinctActions(currentPlayer);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.lostrucos.jabtbg.algorithms.mcts;
+
+import com.lostrucos.jabtbg.core.Action;
+import com.lostrucos.jabtbg.core.GameState;
+import com.lostrucos.jabtbg.core.UtilityStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small game for the search tests: the players take turns picking one of the numbers from 1 to {@link #SIZE}, and
+ * whoever holds the larger sum when all are taken wins. Picking the same numbers in another order reaches the same
+ * position, so the game has many transpositions.
+ */
+final class PickGame {
+    static final int SIZE = 7;
+
+    private PickGame() {
+    }
+
+    record Pick(int number, int player) implements Action {
+        @Override
+        public int getPlayer() {
+            return player;
+        }
+    }
+
+    /**
+     * A position, with the numbers held by each player as bit masks (bit {@code number - 1}).
+     */
+    record State(int firstPicks, int secondPicks, int currentPlayer) implements GameState<Pick> {
+        static final State START = new State(0, 0, 0);
+
+        @Override
+        public int getCurrentPlayer() {
+            return currentPlayer;
+        }
+
+        @Override
+        public boolean isTerminalNode() {
+            return (firstPicks | secondPicks) == (1 << SIZE) - 1;
+        }
+
+        @Override
+        public boolean isTie() {
+            return isTerminalNode() && sum(firstPicks) == sum(secondPicks);
+        }
+
+        int getWinner() {
+            if (!isTerminalNode() || isTie()) return -1;
+            return sum(firstPicks) > sum(secondPicks) ? 0 : 1;
+        }
+
+        @Override
+        public State applyAction(Pick action) {
+            int bit = 1 << (action.number() - 1);
+            return action.player() == 0
+                    ? new State(firstPicks | bit, secondPicks, 1)
+                    : new State(firstPicks, secondPicks | bit, 0);
+        }
+
+        @Override
+        public State deepCopy() {
+            return this;
+        }
+
+        // Chiave senza collisioni: con la sola hashCode posizioni diverse possono condividere la chiave
+        @Override
+        public long stateKey() {
+            return (long) firstPicks << 32 | (long) secondPicks << 1 | currentPlayer;
+        }
+
+        @Override
+        public List<Pick> getAvailableActions(int playerIndex) {
+            List<Pick> actions = new ArrayList<>();
+            for (int number = 1; number <= SIZE; number++) {
+                if (((firstPicks | secondPicks) & 1 << (number - 1)) == 0) {
+                    actions.add(new Pick(number, playerIndex));
+                }
+            }
+            return actions;
+        }
+
+        private static int sum(int picks) {
+            int sum = 0;
+            for (int number = 1; number <= SIZE; number++) {
+                if ((picks & 1 << (number - 1)) != 0) sum += number;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Scores only the end of the game: 1 for a win, 0.5 for a draw and 0 for a loss.
+     */
+    static final class Utility implements UtilityStrategy<State, Pick> {
+        @Override
+        public double calculateUtility(State state, int playerIndex) {
+            int winner = state.getWinner();
+            if (winner == -1) return 0.5;
+            return winner == playerIndex ? 1.0 : 0.0;
+        }
+
+        @Override
+        public List<Pick> suggestStrategicMoves(State state, int currentPlayer) {
+            return state.getAvailableActions(currentPlayer);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoActionSamplingTest {
+
+    @Test
+    void countAndVisitMatchAvailableActions() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(10, 50)) {
+            for (int player = 0; player < 2; player++) {
+                List<PentagoAction> expected = state.getAvailableActions(player);
+                List<PentagoAction> visited = new ArrayList<>();
+                state.forEachAvailableAction(player, visited::add);
+                assertEquals(expected.size(), state.countAvailableActions(player));
+                assertEquals(expected, visited);
+            }
+        }
+    }
+
+    @Test
+    void randomActionDrawsEveryLegalAction() {
+        SplittableRandom random = new SplittableRandom(10);
+        for (int position = 0; position < 20; position++) {
+            PentagoGameState state = PentagoPositions.randomPosition(random, 6);
+            int player = state.getCurrentPlayer();
+            Set<PentagoAction> expected = new HashSet<>(state.getAvailableActions(player));
+            Set<PentagoAction> drawn = new HashSet<>();
+            for (int draw = 0; draw < 2000; draw++) {
+                PentagoAction action = state.getRandomAction(player, random);
+                assertTrue(expected.contains(action), "Illegal action " + action);
+                drawn.add(action);
+            }
+            assertEquals(expected, drawn);
+        }
+    }
+}
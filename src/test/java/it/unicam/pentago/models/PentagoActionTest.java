@@ -0,0 +1,56 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoActionTest {
+
+    @Test
+    void idsRoundTrip() {
+        for (int id = 0; id < PentagoAction.NUM_ACTIONS; id++) {
+            PentagoAction action = PentagoAction.fromId(id);
+            assertEquals(id, action.getId());
+            assertEquals(PentagoBoard.cellIndex(action.getRow(), action.getCol()), PentagoAction.cellOf(id));
+            assertEquals(action.getQuadrant(), PentagoAction.quadrantOf(id));
+            assertEquals(action.isClockwise(), PentagoAction.isClockwise(id));
+            assertEquals(action.getPlayer(), PentagoAction.playerOf(id));
+            assertSame(action, PentagoAction.of(action.getRow(), action.getCol(), action.getQuadrant(),
+                    action.isClockwise(), action.getPlayer()));
+
+            PentagoAction copy = new PentagoAction(action.getRow(), action.getCol(), action.getQuadrant(),
+                    action.isClockwise(), action.getPlayer());
+            assertEquals(action, copy);
+            assertEquals(action.hashCode(), copy.hashCode());
+        }
+    }
+
+    @Test
+    void availableActionIdsMatchAvailableActions() {
+        int[] buffer = new int[8 * PentagoBoard.NUM_CELLS];
+        for (PentagoGameState state : PentagoPositions.randomPositions(4, 20)) {
+            for (int player = 0; player < 2; player++) {
+                List<PentagoAction> actions = state.getAvailableActions(player);
+                assertEquals(actions.size(), state.getAvailableActionIds(player, buffer));
+                for (int i = 0; i < actions.size(); i++) {
+                    assertEquals(actions.get(i).getId(), buffer[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void applyActionByIdMatchesApplyAction() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(5, 10)) {
+            if (state.isTerminalNode()) continue;
+            for (PentagoAction action : state.getAvailableActions(state.getCurrentPlayer())) {
+                PentagoGameState expected = state.deepCopy().applyAction(action);
+                PentagoGameState actual = state.deepCopy().applyAction(action.getId());
+                assertArrayEquals(expected.getBoard().getBoard(), actual.getBoard().getBoard());
+                assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+            }
+        }
+    }
+}
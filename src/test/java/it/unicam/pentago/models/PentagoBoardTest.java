@@ -0,0 +1,79 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoBoardTest {
+
+    @Test
+    void rotateQuadrantMatchesCellByCellRotation() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(1, 20)) {
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                for (boolean clockwise : new boolean[]{true, false}) {
+                    PentagoBoard board = state.getBoard().deepCopy();
+                    int[][] expected = rotate(board.getBoard(), quadrant, clockwise);
+                    board.rotateQuadrant(quadrant, clockwise);
+                    assertArrayEquals(expected, board.getBoard(), "Quadrant " + quadrant + ", clockwise " + clockwise);
+                }
+            }
+        }
+    }
+
+    @Test
+    void masksMatchCells() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(2, 20)) {
+            PentagoBoard board = state.getBoard();
+            for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+                for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
+                    long bit = 1L << PentagoBoard.cellIndex(row, col);
+                    int cell = board.getCell(row, col);
+                    assertEquals(cell == 1, (board.getPlayerMask(0) & bit) != 0);
+                    assertEquals(cell == 2, (board.getPlayerMask(1) & bit) != 0);
+                    assertEquals(cell == 0, (board.getEmptyMask() & bit) != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void setCellOverwritesAndClears() {
+        PentagoBoard board = new PentagoBoard();
+        board.setCell(2, 3, 1);
+        board.setCell(2, 3, 2);
+        assertEquals(2, board.getCell(2, 3));
+        assertEquals(0, board.getPlayerMask(0));
+        board.setCell(2, 3, 0);
+        assertEquals(0, board.getCell(2, 3));
+        assertEquals(PentagoBoard.FULL_MASK, board.getEmptyMask());
+    }
+
+    @Test
+    void getBoardReturnsASnapshot() {
+        PentagoBoard board = new PentagoBoard();
+        board.setCell(2, 3, 1);
+        board.getBoard()[2][3] = 2;
+        assertEquals(1, board.getCell(2, 3));
+    }
+
+    // Rotazione della matrice cella per cella, come faceva la board prima dei bitboard
+    private static int[][] rotate(int[][] cells, int quadrant, boolean clockwise) {
+        int size = PentagoBoard.QUADRANT_SIZE;
+        int startRow = (quadrant / 2) * size;
+        int startCol = (quadrant % 2) * size;
+        int[][] rotated = new int[PentagoBoard.BOARD_SIZE][];
+        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+            rotated[row] = cells[row].clone();
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (clockwise) {
+                    rotated[startRow + j][startCol + size - 1 - i] = cells[startRow + i][startCol + j];
+                } else {
+                    rotated[startRow + size - 1 - j][startCol + i] = cells[startRow + i][startCol + j];
+                }
+            }
+        }
+        return rotated;
+    }
+}
@@ -0,0 +1,59 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoCountersTest {
+    // Valori calcolati con i contatori originali, che scorrevano la board cella per cella in ogni direzione
+    private static final String[] POSITIONS = {
+        "....../....../....../..XO../....../.X....",
+        "....../.X..../OX..../O...X./..O.../......",
+        "X.X..O/....../.XO.OO/....../.X..../.O.X..",
+        ".....O/..OX../.OX.O./X....X/O..XO./OXX...",
+        "X.O.../XOX.O./...XO./O...XO/O..OO./XXX..X",
+        "X.OX.X/O.O.OO/X.OXXO/.OOXXO/.....O/XX..X.",
+        ".O..XX/X.X.../.XOOOO/OXO.XX/X.OOXO/XOOOXX",
+        "XOXXO./XOXX.X/OXOXOO/OOOOXO/XXO.XO/..X.OX",
+    };
+
+    // Per posizione e giocatore: countNInARow 2, 3 e 4, countThreats 3 e 4, evaluatePositionalPotential,
+    // countPotentialWinPaths, countCriticalBlocks, countPotentialBlocks, countAlignedPieces, countCenterPieces
+    // e, sulla board, countNInARow 3 e countBlockingMoves
+    private static final double[][][] EXPECTED = {
+        {{0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0}, {0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0}},
+        {{1, 0, 0, 2, 0, 3.2, 0, 0, 0, 0, 0, 0, 0}, {1, 0, 0, 3, 0, 1.2, 0, 0, 0, 0, 0, 0, 0}},
+        {{0, 0, 0, 2, 0, 2.5, 0, 0, 0, 0, 0, 0, 0}, {1, 0, 0, 3, 1, 2.7, 0, 0, 0, 0, 1, 0, 0}},
+        {{3, 0, 0, 5, 0, 3.6, 0, 0, 0, 0, 1, 0, 0}, {2, 0, 0, 2, 0, 5.4, 0, 0, 0, 0, 0, 0, 0}},
+        {{5, 2, 0, 4, 3, 6.5, 3, 0, 0, 1, 1, 2, 0}, {6, 0, 0, 8, 1, 6.2, 1, 0, 3, 0, 0, 0, 3}},
+        {{7, 0, 0, 9, 3, 6.9, 2, 2, 2, 0, 2, 0, 2}, {10, 4, 2, 9, 3, 9, 5, 0, 1, 4, 2, 4, 1}},
+        {{12, 1, 0, 7, 0, 9.4, 0, 0, 2, 1, 0, 1, 2}, {15, 5, 2, 8, 2, 11.5, 2, 0, 0, 5, 3, 5, 0}},
+        {{16, 3, 0, 3, 1, 12.7, 0, 0, 0, 1, 1, 3, 0}, {20, 7, 1, 4, 2, 14.5, 0, 0, 0, 5, 3, 7, 0}},
+    };
+
+    @Test
+    void countersMatchCellScanValues() {
+        for (int position = 0; position < POSITIONS.length; position++) {
+            PentagoGameState state = PentagoPositions.parse(POSITIONS[position]);
+            for (int player = 0; player < 2; player++) {
+                int opponent = 1 - player;
+                double[] actual = {
+                        state.countNInARow(player, 2),
+                        state.countNInARow(player, 3),
+                        state.countNInARow(player, 4),
+                        state.countThreats(player, 3),
+                        state.countThreats(player, 4),
+                        state.evaluatePositionalPotential(player),
+                        state.countPotentialWinPaths(player),
+                        state.countCriticalBlocks(player, opponent),
+                        state.countPotentialBlocks(player, opponent),
+                        state.countAlignedPieces(player),
+                        state.countCenterPieces(player),
+                        state.getBoard().countNInARow(player, 3),
+                        state.getBoard().countBlockingMoves(player, opponent)
+                };
+                assertArrayEquals(EXPECTED[position][player], actual, POSITIONS[position] + ", player " + player);
+            }
+        }
+    }
+}
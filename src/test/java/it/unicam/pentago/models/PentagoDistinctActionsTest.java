@@ -0,0 +1,32 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoDistinctActionsTest {
+
+    @Test
+    void distinctActionsReachEverySuccessorExactlyOnce() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(7, 50)) {
+            if (state.isTerminalNode()) continue;
+            int player = state.getCurrentPlayer();
+            List<PentagoAction> available = state.getAvailableActions(player);
+            Set<PentagoGameState> successors = new HashSet<>();
+            for (PentagoAction action : available) {
+                successors.add(state.applyAction(action));
+            }
+
+            Set<PentagoGameState> distinctSuccessors = new HashSet<>();
+            for (PentagoAction action : state.getDistinctActions(player)) {
+                assertTrue(available.contains(action), "Illegal action " + action);
+                assertTrue(distinctSuccessors.add(state.applyAction(action)), "Duplicate successor of " + action);
+            }
+            assertEquals(successors, distinctSuccessors);
+        }
+    }
+}
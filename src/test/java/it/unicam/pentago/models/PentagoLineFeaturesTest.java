@@ -0,0 +1,39 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoLineFeaturesTest {
+
+    @Test
+    void incrementalLinesMatchRebuiltBoard() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(11, 200)) {
+            PentagoBoard board = state.getBoard();
+            PentagoBoard rebuilt = new PentagoBoard();
+            for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+                for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
+                    rebuilt.setCell(row, col, board.getCell(row, col));
+                }
+            }
+            assertArrayEquals(rebuilt.getLineEntries(), board.getLineEntries());
+            assertEquals(rebuilt.getLineFeatures(), board.getLineFeatures());
+        }
+    }
+
+    @Test
+    void undoActionRestoresLineFeatures() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(4, 50)) {
+            if (state.isTerminalNode()) continue;
+            PentagoBoard board = state.getBoard();
+            int[] lineEntries = board.getLineEntries().clone();
+            long lineFeatures = board.getLineFeatures();
+            for (PentagoAction action : state.getAvailableActions(state.getCurrentPlayer())) {
+                state.doAction(action);
+                state.undoAction(action);
+                assertEquals(lineFeatures, board.getLineFeatures());
+                assertArrayEquals(lineEntries, board.getLineEntries());
+            }
+        }
+    }
+}
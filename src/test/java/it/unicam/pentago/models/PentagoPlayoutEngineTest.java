@@ -0,0 +1,50 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoPlayoutEngineTest {
+
+    @Test
+    void findWinningMoveMatchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(23);
+        int positionsWithWin = 0;
+        for (PentagoGameState state : PentagoPositions.randomPositions(23, 300)) {
+            if (state.isTerminalNode()) continue;
+            long own = state.getBoard().getPlayerMask(state.getCurrentPlayer());
+            long opponent = state.getBoard().getPlayerMask(1 - state.getCurrentPlayer());
+
+            boolean winExists = false;
+            long empty = ~(own | opponent) & PentagoBoard.FULL_MASK;
+            for (int cell = 0; cell < PentagoBoard.NUM_CELLS; cell++) {
+                if ((empty & 1L << cell) == 0) continue;
+                for (int rotation = 0; rotation < 8; rotation++) {
+                    winExists |= isWinningMove(own, opponent, PentagoAction.encode(cell, rotation >> 1, (rotation & 1) == 0, 0));
+                }
+            }
+
+            int move = PentagoPlayoutEngine.findWinningMove(own, opponent, random);
+            if (winExists) {
+                positionsWithWin++;
+                assertTrue(move >= 0, "Missed win for " + own + " against " + opponent);
+                assertTrue((empty & 1L << PentagoAction.cellOf(move)) != 0, "Occupied cell in move " + move);
+                assertTrue(isWinningMove(own, opponent, move), "Move " + move + " does not win");
+            } else {
+                assertEquals(-1, move);
+            }
+        }
+        assertTrue(positionsWithWin > 0);
+    }
+
+    // Vince solo chi completa cinque in fila senza che lo completi anche l'avversario
+    private static boolean isWinningMove(long own, long opponent, int move) {
+        int quadrant = PentagoAction.quadrantOf(move);
+        boolean clockwise = PentagoAction.isClockwise(move);
+        long nextOwn = PentagoBoard.rotate(own | 1L << PentagoAction.cellOf(move), quadrant, clockwise);
+        long nextOpponent = PentagoBoard.rotate(opponent, quadrant, clockwise);
+        return PentagoBoard.containsWinLine(nextOwn) && !PentagoBoard.containsWinLine(nextOpponent);
+    }
+}
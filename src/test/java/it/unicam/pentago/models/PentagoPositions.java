@@ -0,0 +1,109 @@
+package it.unicam.pentago.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Seeded random Pentago positions shared by the tests.
+ * Moves are drawn through the public row/column API only, so the same seed always gives the same positions.
+ */
+public final class PentagoPositions {
+
+    private PentagoPositions() {
+    }
+
+    /**
+     * Plays one random game from the empty board.
+     *
+     * @return every position of the game, from the empty board to the terminal one
+     */
+    public static List<PentagoGameState> randomGame(RandomGenerator random) {
+        List<PentagoGameState> positions = new ArrayList<>();
+        PentagoGameState state = new PentagoGameState(new PentagoBoard(), 0);
+        positions.add(state);
+        while (!state.isTerminalNode()) {
+            state = state.deepCopy().applyAction(randomAction(state, random));
+            positions.add(state);
+        }
+        return positions;
+    }
+
+    /**
+     * Collects the positions of the given number of random games.
+     */
+    public static List<PentagoGameState> randomPositions(long seed, int games) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<PentagoGameState> positions = new ArrayList<>();
+        for (int game = 0; game < games; game++) {
+            positions.addAll(randomGame(random));
+        }
+        return positions;
+    }
+
+    /**
+     * Returns a random non-terminal position with exactly the given number of empty cells.
+     */
+    public static PentagoGameState randomPosition(RandomGenerator random, int emptyCells) {
+        int moves = PentagoBoard.BOARD_SIZE * PentagoBoard.BOARD_SIZE - emptyCells;
+        while (true) {
+            PentagoGameState state = new PentagoGameState(new PentagoBoard(), 0);
+            for (int move = 0; move < moves && !state.isTerminalNode(); move++) {
+                state = state.deepCopy().applyAction(randomAction(state, random));
+            }
+            if (!state.isTerminalNode() && countEmptyCells(state) == emptyCells) {
+                return state;
+            }
+        }
+    }
+
+    /**
+     * Builds a position from its rows separated by '/', with 'X' for the first player, 'O' for the second and '.' for
+     * an empty cell. The player to move follows from the number of pieces.
+     */
+    public static PentagoGameState parse(String rows) {
+        PentagoBoard board = new PentagoBoard();
+        String[] cells = rows.split("/");
+        int pieces = 0;
+        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
+                int value = ".XO".indexOf(cells[row].charAt(col));
+                board.setCell(row, col, value);
+                if (value != 0) {
+                    pieces++;
+                }
+            }
+        }
+        return new PentagoGameState(board, pieces % 2);
+    }
+
+    /**
+     * Draws a uniformly random legal move for the player to move.
+     */
+    public static PentagoAction randomAction(PentagoGameState state, RandomGenerator random) {
+        int target = random.nextInt(countEmptyCells(state));
+        PentagoBoard board = state.getBoard();
+        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
+                if (board.getCell(row, col) == 0 && target-- == 0) {
+                    return new PentagoAction(row, col, random.nextInt(4), random.nextBoolean(), state.getCurrentPlayer());
+                }
+            }
+        }
+        throw new IllegalStateException("No empty cell left");
+    }
+
+    private static int countEmptyCells(PentagoGameState state) {
+        PentagoBoard board = state.getBoard();
+        int empty = 0;
+        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
+                if (board.getCell(row, col) == 0) {
+                    empty++;
+                }
+            }
+        }
+        return empty;
+    }
+}
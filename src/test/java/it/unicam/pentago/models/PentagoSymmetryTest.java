@@ -0,0 +1,37 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoSymmetryTest {
+
+    @Test
+    void canonicalKeyIsInvariantUnderAllTransforms() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(6, 300)) {
+            long canonicalKey = state.canonicalKey();
+            for (int transform = 0; transform < PentagoSymmetry.NUM_TRANSFORMS; transform++) {
+                PentagoBoard transformed = PentagoSymmetry.transformBoard(transform, state.getBoard());
+                assertEquals(canonicalKey, PentagoSymmetry.canonicalKey(transformed, state.getCurrentPlayer()),
+                        "Transform " + transform);
+            }
+        }
+    }
+
+    @Test
+    void transformedActionLeadsToTransformedSuccessor() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(9, 5)) {
+            if (state.isTerminalNode()) continue;
+            for (PentagoAction action : state.getAvailableActions(state.getCurrentPlayer())) {
+                PentagoBoard successor = state.applyAction(action).getBoard();
+                for (int transform = 0; transform < PentagoSymmetry.NUM_TRANSFORMS; transform++) {
+                    PentagoGameState transformed = new PentagoGameState(
+                            PentagoSymmetry.transformBoard(transform, state.getBoard()), state.getCurrentPlayer());
+                    transformed.doAction(PentagoSymmetry.transformAction(transform, action));
+                    assertArrayEquals(PentagoSymmetry.transformBoard(transform, successor).getBoard(),
+                            transformed.getBoard().getBoard(), "Transform " + transform + " of " + action);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoUndoTest {
+
+    @Test
+    void undoActionRestoresTheState() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(6, 50)) {
+            if (state.isTerminalNode()) continue;
+            PentagoBoard board = state.getBoard();
+            long player1Mask = board.getPlayerMask(0);
+            long player2Mask = board.getPlayerMask(1);
+            int player = state.getCurrentPlayer();
+
+            for (PentagoAction action : state.getAvailableActions(player)) {
+                state.doAction(action);
+                assertEquals(1 - player, state.getCurrentPlayer());
+                state.undoAction(action);
+                assertEquals(player1Mask, board.getPlayerMask(0));
+                assertEquals(player2Mask, board.getPlayerMask(1));
+                assertEquals(player, state.getCurrentPlayer());
+            }
+        }
+    }
+
+    @Test
+    void doActionMatchesApplyAction() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(7, 20)) {
+            if (state.isTerminalNode()) continue;
+            int[][] cells = state.getBoard().getBoard();
+            for (PentagoAction action : state.getAvailableActions(state.getCurrentPlayer())) {
+                PentagoGameState expected = state.applyAction(action);
+                PentagoGameState actual = state.deepCopy();
+                actual.doAction(action);
+                assertArrayEquals(expected.getBoard().getBoard(), actual.getBoard().getBoard());
+                assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+            }
+            // applyAction lavora su una copia
+            assertArrayEquals(cells, state.getBoard().getBoard());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoWinnerTest {
+
+    @Test
+    void checkForWinnerMatchesCellScan() {
+        int wins = 0;
+        for (PentagoGameState state : PentagoPositions.randomPositions(3, 300)) {
+            boolean firstWins = hasFiveInARow(state.getBoard(), 1);
+            boolean secondWins = hasFiveInARow(state.getBoard(), 2);
+            int expected = firstWins == secondWins ? -1 : firstWins ? 0 : 1;
+            assertEquals(expected, state.checkForWinner(), "Winner of\n" + state);
+            assertEquals(firstWins || secondWins || state.getBoard().isFull(), state.isTerminalNode());
+            if (expected != -1) wins++;
+        }
+        assertTrue(wins > 0);
+    }
+
+    @Test
+    void simultaneousWinIsADraw() {
+        PentagoGameState state = PentagoPositions.parse("XXXXX./OOOOO./....../....../....../......");
+        assertTrue(state.isSimultaneousWin());
+        assertEquals(-1, state.checkForWinner());
+        assertTrue(state.isTerminalNode());
+        assertTrue(state.isTie());
+    }
+
+    // Cerca cinque pezzi consecutivi in ogni direzione, cella per cella
+    private static boolean hasFiveInARow(PentagoBoard board, int value) {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int row = 0; row < PentagoBoard.BOARD_SIZE; row++) {
+            for (int col = 0; col < PentagoBoard.BOARD_SIZE; col++) {
+                for (int[] direction : directions) {
+                    int length = 0;
+                    while (length < 5) {
+                        int r = row + length * direction[0];
+                        int c = col + length * direction[1];
+                        if (r >= PentagoBoard.BOARD_SIZE || c < 0 || c >= PentagoBoard.BOARD_SIZE
+                                || board.getCell(r, c) != value) break;
+                        length++;
+                    }
+                    if (length == 5) return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,42 @@
+package it.unicam.pentago.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoZobristTest {
+
+    @Test
+    void incrementalKeyMatchesKeyFromScratch() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(5, 500)) {
+            PentagoBoard board = state.getBoard();
+            long expected = PentagoZobrist.keyOf(board.getPlayerMask(0), 0) ^ PentagoZobrist.keyOf(board.getPlayerMask(1), 1);
+            assertEquals(expected, board.getZobristKey());
+            assertEquals(state.getCurrentPlayer() == 1 ? expected ^ PentagoZobrist.SIDE_TO_MOVE : expected, state.stateKey());
+        }
+    }
+
+    @Test
+    void undoActionRestoresKeyAndEquality() {
+        for (PentagoGameState state : PentagoPositions.randomPositions(8, 50)) {
+            if (state.isTerminalNode()) continue;
+            PentagoGameState before = state.deepCopy();
+            for (PentagoAction action : state.getAvailableActions(state.getCurrentPlayer())) {
+                state.doAction(action);
+                state.undoAction(action);
+                assertEquals(before, state);
+                assertEquals(before.hashCode(), state.hashCode());
+                assertEquals(before.stateKey(), state.stateKey());
+            }
+        }
+    }
+
+    @Test
+    void sideToMoveIsPartOfTheKey() {
+        PentagoGameState state = PentagoPositions.parse("X...../....../..O.../....../....../......");
+        PentagoGameState otherSide = new PentagoGameState(state.getBoard().deepCopy(), 1 - state.getCurrentPlayer());
+        assertEquals(state.getBoard().getZobristKey(), otherSide.getBoard().getZobristKey());
+        assertNotEquals(state.stateKey(), otherSide.stateKey());
+        assertNotEquals(state, otherSide);
+    }
+}
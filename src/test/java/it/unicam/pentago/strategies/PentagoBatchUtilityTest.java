@@ -0,0 +1,48 @@
+package it.unicam.pentago.strategies;
+
+import com.lostrucos.jabtbg.core.UtilityStrategy;
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoBoard;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoBatchUtilityTest {
+    private final List<UtilityStrategy<PentagoGameState, PentagoAction>> strategies = List.of(
+            new AdvancedPentagoStrategy(), new BalancedPentagoUtility(), new StrategicPentagoUtility());
+
+    @Test
+    void batchUtilitiesMatchSingleStateUtilities() {
+        List<PentagoGameState> states = PentagoPositions.randomPositions(13, 20);
+        double[] utilities = new double[states.size()];
+        for (UtilityStrategy<PentagoGameState, PentagoAction> strategy : strategies) {
+            for (int player = 0; player < 2; player++) {
+                strategy.calculateUtilities(states, player, utilities);
+                for (int i = 0; i < states.size(); i++) {
+                    assertEquals(strategy.calculateUtility(states.get(i), player), utilities[i],
+                            strategy.getClass().getSimpleName() + " on\n" + states.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void childUtilitiesMatchSingleStateUtilities() {
+        double[] utilities = new double[8 * PentagoBoard.NUM_CELLS];
+        for (PentagoGameState state : PentagoPositions.randomPositions(14, 3)) {
+            if (state.isTerminalNode()) continue;
+            List<PentagoAction> actions = state.getAvailableActions(state.getCurrentPlayer());
+            for (UtilityStrategy<PentagoGameState, PentagoAction> strategy : strategies) {
+                strategy.calculateChildUtilities(state, actions, state.getCurrentPlayer(), utilities);
+                for (int i = 0; i < actions.size(); i++) {
+                    assertEquals(strategy.calculateUtility(state.applyAction(actions.get(i)), state.getCurrentPlayer()),
+                            utilities[i], strategy.getClass().getSimpleName() + " after " + actions.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package it.unicam.pentago.strategies;
+
+import it.unicam.pentago.models.PentagoAction;
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoFeaturesTest {
+
+    @Test
+    void featuresMatchStateCounters() {
+        PentagoFeatures features = new PentagoFeatures();
+        for (PentagoGameState state : PentagoPositions.randomPositions(12, 100)) {
+            features.extract(state);
+            assertEquals(state.checkForWinner(), features.getWinner());
+            assertEquals(state.isTie(), features.isTie());
+            assertEquals(state.getAvailableActions(state.getCurrentPlayer()).size(), features.getLegalMoves());
+            for (int player = 0; player < 2; player++) {
+                int opponent = 1 - player;
+                assertEquals(state.getBoard().getPlayerMask(player), features.getPieces(player));
+                assertEquals(state.countThreats(player, 4), features.getThreats(player));
+                assertEquals(state.countPotentialWinPaths(player), features.getPotentialWinPaths(player));
+                assertEquals(state.countAlignedPieces(player), features.getAlignedPieces(player));
+                assertEquals(state.countCenterPieces(player), features.getCenterPieces(player));
+                assertEquals(state.evaluatePositionalPotential(player), features.getPositionalPotential(player));
+                assertEquals(state.countCriticalBlocks(player, opponent), features.getCriticalBlocks(opponent));
+                assertEquals(state.countPotentialBlocks(player, opponent), features.getPotentialBlocks(opponent));
+                if (!state.isTerminalNode()) {
+                    assertEquals(countWinningMoves(state, player), features.getWinningMoves(player));
+                }
+            }
+        }
+    }
+
+    private static int countWinningMoves(PentagoGameState state, int player) {
+        int winningMoves = 0;
+        for (PentagoAction action : state.getAvailableActions(player)) {
+            if (state.applyAction(action).checkForWinner() == player) {
+                winningMoves++;
+            }
+        }
+        return winningMoves;
+    }
+}
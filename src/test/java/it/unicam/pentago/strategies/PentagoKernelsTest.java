@@ -0,0 +1,46 @@
+package it.unicam.pentago.strategies;
+
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoKernelsTest {
+
+    // Con il backend vettoriale selezionato confronta le lane e la coda del loop con i loop scalari
+    @Test
+    void selectedKernelsMatchScalarKernels() {
+        PentagoFeatureBatch batch = new PentagoFeatureBatch();
+        batch.addAll(PentagoPositions.randomPositions(15, 10));
+        int size = batch.size();
+        PentagoKernels scalar = new ScalarPentagoKernels();
+        List<PentagoStrategy> strategies = List.of(new MonicasFive(), new MiddleFive(), new StraightFive(), new TriplePowerPlay());
+
+        for (int player = 0; player < 2; player++) {
+            double[] expected = new double[size];
+            double[] actual = new double[size];
+            scalar.advanced(batch, player, expected);
+            PentagoKernels.INSTANCE.advanced(batch, player, actual);
+            assertArrayEquals(expected, actual, PentagoKernels.INSTANCE.getName() + " advanced");
+
+            double[] baseUtilities = expected.clone();
+            double[] bestStrategies = new double[size];
+            for (int i = 0; i < size; i++) {
+                for (PentagoStrategy strategy : strategies) {
+                    bestStrategies[i] = Math.max(bestStrategies[i], strategy.evaluatePieces(batch.pieces[player][i]));
+                }
+            }
+            System.arraycopy(bestStrategies, 0, expected, 0, size);
+            System.arraycopy(bestStrategies, 0, actual, 0, size);
+            scalar.strategic(batch, player, baseUtilities, expected);
+            PentagoKernels.INSTANCE.strategic(batch, player, baseUtilities, actual);
+            assertArrayEquals(expected, actual, PentagoKernels.INSTANCE.getName() + " strategic");
+
+            scalar.balanced(batch, player, expected);
+            PentagoKernels.INSTANCE.balanced(batch, player, actual);
+            assertArrayEquals(expected, actual, PentagoKernels.INSTANCE.getName() + " balanced");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package it.unicam.pentago.strategies;
+
+import it.unicam.pentago.models.PentagoGameState;
+import it.unicam.pentago.models.PentagoPositions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PentagoUtilityTest {
+    // Valori calcolati con le valutazioni che giocavano ogni mossa e ogni rotazione su una copia dello stato
+    private static final String[] POSITIONS = {
+        "....../....../....../..XO../....../.X....",
+        "....../.X..../OX..../O...X./..O.../......",
+        "X.X..O/....../.XO.OO/....../.X..../.O.X..",
+        ".....O/..OX../.OX.O./X....X/O..XO./OXX...",
+        "X.O.../XOX.O./...XO./O...XO/O..OO./XXX..X",
+        "X.OX.X/O.O.OO/X.OXXO/.OOXXO/.....O/XX..X.",
+        ".O..XX/X.X.../.XOOOO/OXO.XX/X.OOXO/XOOOXX",
+        "XOXXO./XOXX.X/OXOXOO/OOOOXO/XXO.XO/..X.OX",
+    };
+
+    // Per posizione e giocatore: AdvancedPentagoStrategy, BalancedPentagoUtility, StrategicPentagoUtility
+    private static final double[][][] UTILITIES = {
+        {{0.4, 0.703, 0.33999999999999997}, {0.4, 0.703, 0.33999999999999997}},
+        {{0.41500000000000004, 0.7, 0.3505}, {0.385, 0.7, 0.38949999999999996}},
+        {{0.38349999999999995, 0.7, 0.32844999999999996}, {0.4165, 0.715, 0.47154999999999997}},
+        {{0.4065, 0.715, 0.34454999999999997}, {0.3935, 0.7, 0.39544999999999997}},
+        {{0.38725, 0.745, 0.33107499999999995}, {0.4427500000000001, 0.7, 0.48992500000000005}},
+        {{0.40175, 0.7, 0.461225}, {0.46824999999999994, 0.826, 0.9098214285714286}},
+        {{0.40925, 0.7, 0.346475}, {0.41075, 0.871, 0.905}},
+        {{0.4315, 0.7, 0.43705}, {0.36850000000000005, 0.859, 0.9083333333333333}},
+    };
+
+    // Per posizione e giocatore: MonicasFive, MiddleFive, StraightFive, TriplePowerPlay
+    private static final double[][][] STRATEGY_VALUES = {
+        {{0, 0.2, 0, 0.05}, {0, 0.2, 0, 0.05}},
+        {{0, 0, 0.2, 0.2}, {0.4, 0, 0.2, 0}},
+        {{0.2, 0, 0.2, 0.2}, {0.2, 0.2, 0.6, 0.05}},
+        {{0.2, 0.2, 0.2, 0.05}, {0, 0, 0.4, 0.2}},
+        {{0, 0.2, 0.2, 0.05}, {0.4, 0, 0.2, 0.6000000000000001}},
+        {{0.4, 0.4, 0.6, 0.1}, {0.4, 0.4, 0.4, 0.3}},
+        {{0, 0.2, 0.2, 0.2}, {0.4, 0.6, 0.8, 0.15000000000000002}},
+        {{0.4, 0.2, 0.4, 0.45}, {0.6, 0.8, 0.8, 0.35}},
+    };
+
+    @Test
+    void utilitiesMatchPreviousValues() {
+        AdvancedPentagoStrategy advanced = new AdvancedPentagoStrategy();
+        BalancedPentagoUtility balanced = new BalancedPentagoUtility();
+        StrategicPentagoUtility strategic = new StrategicPentagoUtility();
+        for (int position = 0; position < POSITIONS.length; position++) {
+            PentagoGameState state = PentagoPositions.parse(POSITIONS[position]);
+            for (int player = 0; player < 2; player++) {
+                double[] actual = {
+                        advanced.calculateUtility(state, player),
+                        balanced.calculateUtility(state, player),
+                        strategic.calculateUtility(state, player)
+                };
+                assertArrayEquals(UTILITIES[position][player], actual, POSITIONS[position] + ", player " + player);
+            }
+        }
+    }
+
+    @Test
+    void strategyValuesMatchPreviousValues() {
+        List<PentagoStrategy> strategies = List.of(new MonicasFive(), new MiddleFive(), new StraightFive(), new TriplePowerPlay());
+        for (int position = 0; position < POSITIONS.length; position++) {
+            PentagoGameState state = PentagoPositions.parse(POSITIONS[position]);
+            for (int player = 0; player < 2; player++) {
+                double[] actual = new double[strategies.size()];
+                for (int i = 0; i < actual.length; i++) {
+                    actual[i] = strategies.get(i).evaluateState(state, player);
+                }
+                assertArrayEquals(STRATEGY_VALUES[position][player], actual, POSITIONS[position] + ", player " + player);
+            }
+        }
+    }
+}